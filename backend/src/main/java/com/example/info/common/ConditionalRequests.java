@@ -0,0 +1,92 @@
+package com.example.info.common;
+
+import com.example.info.entity.Info;
+import com.example.info.stats.ModificationWatermarks;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 条件GET支持
+ * 列表接口的ETag/Last-Modified取自类型的修改水位，详情接口取自记录的updatedTime；
+ * 客户端缓存仍然有效时直接返回304，不执行列表查询也不加载实体
+ */
+@Component
+public class ConditionalRequests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ModificationWatermarks watermarks;
+
+    public ConditionalRequests(ModificationWatermarks watermarks) {
+        this.watermarks = watermarks;
+    }
+
+    /**
+     * 检查列表内容是否未修改，同时写入ETag和Last-Modified响应头
+     * @return true表示已设置304状态，调用方应直接返回null
+     */
+    public boolean checkNotModified(WebRequest request, Class<? extends Info> type) {
+        requireRevalidation(request);
+        return request.checkNotModified(watermarks.listETag(type), watermarks.lastModified(type));
+    }
+
+    /**
+     * 检查单条记录是否未修改
+     * 只有请求带有条件头时才查询该记录的updatedTime（单列主键查询，不读取@Lob内容），
+     * 未命中时由调用方加载实体后通过writeValidators写入响应头
+     * @return true表示已设置304状态，调用方应直接返回null
+     */
+    public boolean checkNotModified(WebRequest request, Class<? extends Info> type, Long id) {
+        requireRevalidation(request);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null
+                && request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null) {
+            return false;
+        }
+        String entityName = entityManager.getMetamodel().entity(type).getName();
+        List<Date> updatedTimes = entityManager
+                .createQuery("select e.updatedTime from " + entityName + " e where e.id = :id", Date.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (updatedTimes.isEmpty() || updatedTimes.get(0) == null) {
+            return false;
+        }
+        long updatedTime = updatedTimes.get(0).getTime();
+        return request.checkNotModified(watermarks.entityETag(updatedTime), watermarks.entityLastModified(updatedTime));
+    }
+
+    /**
+     * 为已加载的记录写入ETag和Last-Modified响应头
+     */
+    public void writeValidators(WebRequest request, Info entity) {
+        HttpServletResponse response = response(request);
+        if (entity == null || entity.getUpdatedTime() == null || response == null) {
+            return;
+        }
+        long updatedTime = entity.getUpdatedTime().getTime();
+        response.setHeader(HttpHeaders.ETAG, watermarks.entityETag(updatedTime));
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, watermarks.entityLastModified(updatedTime));
+    }
+
+    /**
+     * 要求浏览器每次使用缓存前都向服务端验证，避免按Last-Modified启发式缓存返回过期数据
+     */
+    private void requireRevalidation(WebRequest request) {
+        HttpServletResponse response = response(request);
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+    }
+
+    private HttpServletResponse response(WebRequest request) {
+        return request instanceof ServletWebRequest servletRequest ? servletRequest.getResponse() : null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.info.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 与Page不同，不包含总条数，因此不需要执行COUNT查询；
+ * 下一页通过nextCursor作为after参数请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorSlice<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // 下一页的游标，没有下一页时为null
+    private String nextCursor;
+
+    public static <T> CursorSlice<T> empty(int size) {
+        return new CursorSlice<>(new ArrayList<>(), size, false, null);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.info.common;
+
+import com.example.info.entity.Info;
+import com.example.info.exception.BusinessException;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页
+ * 以"排序字段 + id"作为游标，下一页通过 WHERE (field, id) 在游标之后 的条件定位，
+ * 代替 OFFSET 分页，且不执行COUNT查询，每一页的代价与页码无关
+ */
+public final class KeysetPager {
+
+    private static final String TIE_BREAKER = "id";
+
+    private KeysetPager() {
+    }
+
+    /**
+     * 查询游标之后的一页数据
+     * @param repository 实体对应的Repository
+     * @param spec 过滤条件
+     * @param sort 排序方式（只使用第一个排序字段，id作为次级排序）
+     * @param after 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 游标分页结果
+     */
+    public static <T extends Info> CursorSlice<T> fetch(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                                        Sort sort, String after, int size) {
+        return fetch(spec, sort, after, size,
+                (effective, keysetSort, limit) -> repository.findBy(effective, query -> query.sortBy(keysetSort).limit(limit).all()),
+                Info::getId, (row, property) -> new BeanWrapperImpl(row).getPropertyValue(property));
+    }
+
+    /**
+     * 查询游标之后的一页数据，由调用方决定读取的列（如只读取列表摘要）
+     * @param spec 过滤条件
+     * @param sort 排序方式（只使用第一个排序字段，id作为次级排序）
+     * @param after 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @param loader 按条件、排序和行数读取记录的方法
+     * @param idOf 取记录ID的方法
+     * @param valueOf 取记录排序字段值的方法
+     * @return 游标分页结果
+     */
+    public static <T extends Info, R> CursorSlice<R> fetch(Specification<T> spec, Sort sort, String after, int size,
+                                                           RowLoader<T, R> loader, Function<R, Long> idOf,
+                                                           BiFunction<R, String, Object> valueOf) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.desc("createdTime"));
+        Sort keysetSort = Sort.by(order, new Sort.Order(order.getDirection(), TIE_BREAKER));
+
+        Specification<T> effective = spec;
+        if (after != null && !after.isEmpty()) {
+            Cursor cursor = Cursor.decode(after);
+            if (!cursor.property.equals(order.getProperty())) {
+                throw new BusinessException("分页游标与当前排序方式不一致");
+            }
+            effective = spec.and(afterCursor(order, cursor));
+        }
+
+        // 多取一条用于判断是否还有下一页
+        List<R> rows = loader.load(effective, keysetSort, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<R> content = new ArrayList<>(hasNext ? rows.subList(0, size) : rows);
+        String nextCursor = null;
+        if (hasNext) {
+            R last = content.get(content.size() - 1);
+            nextCursor = Cursor.of(order.getProperty(), idOf.apply(last), valueOf.apply(last, order.getProperty())).encode();
+        }
+        return new CursorSlice<>(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * 按条件读取一页记录
+     */
+    @FunctionalInterface
+    public interface RowLoader<T, R> {
+        /**
+         * @param spec 过滤条件（已包含游标条件）
+         * @param sort 排序方式（排序字段 + id）
+         * @param limit 最多读取的条数
+         */
+        List<R> load(Specification<T> spec, Sort sort, int limit);
+    }
+
+    /**
+     * 构建"位于游标之后"的条件
+     * MySQL中NULL小于任何值：升序时NULL在最前，降序时NULL在最后
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Specification<T> afterCursor(Sort.Order order, Cursor cursor) {
+        return (root, query, cb) -> {
+            Path field = root.get(order.getProperty());
+            Path<Long> id = root.get(TIE_BREAKER);
+            boolean asc = order.isAscending();
+            Predicate idAfter = asc ? cb.greaterThan(id, cursor.id) : cb.lessThan(id, cursor.id);
+
+            if (cursor.value == null) {
+                Predicate sameNullGroup = cb.and(cb.isNull(field), idAfter);
+                // 升序时NULL之后还有全部非NULL行；降序时NULL已是最后一组
+                return asc ? cb.or(sameNullGroup, cb.isNotNull(field)) : sameNullGroup;
+            }
+
+            Comparable value = cursor.parseValue(field.getJavaType());
+            Predicate fieldAfter = asc ? cb.greaterThan(field, value) : cb.lessThan(field, value);
+            Predicate sameValue = cb.and(cb.equal(field, value), idAfter);
+            if (asc) {
+                return cb.or(fieldAfter, sameValue);
+            }
+            return cb.or(fieldAfter, sameValue, cb.isNull(field));
+        };
+    }
+
+    /**
+     * 游标内容：排序字段名、该行的排序字段值和id，序列化为URL安全的Base64字符串
+     */
+    private static final class Cursor {
+        private final String property;
+        private final Long id;
+        private final String value;
+
+        private Cursor(String property, Long id, String value) {
+            this.property = property;
+            this.id = id;
+            this.value = value;
+        }
+
+        static Cursor of(String property, Long id, Object value) {
+            String text;
+            if (value == null) {
+                text = null;
+            } else if (value instanceof Date date) {
+                text = String.valueOf(date.getTime());
+            } else {
+                text = value.toString();
+            }
+            return new Cursor(property, id, text);
+        }
+
+        String encode() {
+            // 值放在最后，允许其中包含分隔符
+            String raw = property + "|" + id + "|" + (value == null ? "" : "v" + value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 3);
+                String value = parts[2].isEmpty() ? null : parts[2].substring(1);
+                return new Cursor(parts[0], Long.parseLong(parts[1]), value);
+            } catch (RuntimeException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+
+        @SuppressWarnings("rawtypes")
+        Comparable parseValue(Class<?> javaType) {
+            try {
+                if (Date.class.isAssignableFrom(javaType)) {
+                    return new Date(Long.parseLong(value));
+                } else if (javaType == LocalDateTime.class) {
+                    return LocalDateTime.parse(value);
+                } else if (javaType == Integer.class) {
+                    return Integer.valueOf(value);
+                } else if (javaType == Long.class) {
+                    return Long.valueOf(value);
+                }
+                return value;
+            } catch (RuntimeException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.info.common;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 部分更新：把源对象中指定的字段复制到目标对象
+ * 要复制哪些字段由调用方根据请求体中实际出现的属性决定，不能根据值是否为null判断：
+ * 带初始值的字段（如空标签列表、默认状态）在请求体省略时也不是null，按值判断会覆盖已有数据
+ * 每个类的字段访问器（读取用VarHandle，写入用setter的MethodHandle）只在第一次使用时解析一次并缓存，
+ * 之后的复制不再经过反射查找
+ */
+public final class PartialUpdater {
+
+    // 由系统维护、不允许通过更新请求修改的字段
+    private static final Set<String> SKIPPED_FIELDS = Set.of("id", "createdTime", "updatedTime");
+
+    // Hibernate字节码增强加入的字段前缀
+    private static final String ENHANCER_FIELD_PREFIX = "$$_hibernate_";
+
+    private static final ClassValue<Accessor[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessor[] computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private PartialUpdater() {
+    }
+
+    /**
+     * 复制指定的字段（值为null时目标字段也被清空），包括从父类继承的字段
+     * @param source 更新请求中的对象
+     * @param target 数据库中已有的对象，与source类型相同
+     * @param fields 需要复制的字段名，不存在或由系统维护的字段被忽略
+     * @return target
+     */
+    public static <T> T copy(T source, T target, Collection<String> fields) {
+        if (source.getClass() != target.getClass()) {
+            throw new IllegalArgumentException("Type mismatch: " + source.getClass() + " vs " + target.getClass());
+        }
+        for (Accessor accessor : ACCESSORS.get(source.getClass())) {
+            if (fields.contains(accessor.name)) {
+                accessor.set(target, accessor.field.get(source));
+            }
+        }
+        return target;
+    }
+
+    private static Accessor[] resolve(Class<?> type) {
+        List<Accessor> accessors = new ArrayList<>();
+        // 子类重新声明的同名字段遮蔽父类字段，父类的setter也会被子类覆盖，只保留子类的访问器
+        Set<String> names = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(current, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access fields of " + current.getName(), e);
+            }
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || field.getType().isPrimitive() || SKIPPED_FIELDS.contains(field.getName())
+                        || field.getName().startsWith(ENHANCER_FIELD_PREFIX) || !names.add(field.getName())) {
+                    continue;
+                }
+                try {
+                    accessors.add(new Accessor(field.getName(), lookup.unreflectVarHandle(field),
+                            setter(lookup, current, field)));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot access " + current.getName() + "." + field.getName(), e);
+                }
+            }
+        }
+        return accessors.toArray(new Accessor[0]);
+    }
+
+    /**
+     * 查找字段的setter，没有时返回null
+     * 经过字节码增强的实体必须通过setter写入，Hibernate才能记录修改和延迟加载字段的初始化状态
+     */
+    private static MethodHandle setter(MethodHandles.Lookup lookup, Class<?> owner, Field field) {
+        String name = "set" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        try {
+            return lookup.findVirtual(owner, name, MethodType.methodType(void.class, field.getType()))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class Accessor {
+        final String name;
+        final VarHandle field;
+        final MethodHandle setter;
+
+        Accessor(String name, VarHandle field, MethodHandle setter) {
+            this.name = name;
+            this.field = field;
+            this.setter = setter;
+        }
+
+        void set(Object target, Object value) {
+            if (setter == null) {
+                field.set(target, value);
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.info.common;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按全文检索相关度分页（列表接口的sortBy=relevance）
+ * 相似度只存在于进程内索引中，数据库无法按它排序：由索引给出按相似度排好的候选ID，
+ * 截取当前页的ID后按ID读取这一页的记录，再恢复相似度顺序；总数即候选ID数，不需要COUNT查询
+ */
+public final class RelevancePager {
+
+    // 标记按相关度排序的排序属性，不是实体字段，不能交给数据库
+    private static final String RELEVANCE = "relevance";
+
+    // 无法按相关度排序时使用的排序方式
+    private static final Sort FALLBACK_SORT = Sort.by(Sort.Direction.DESC, "createdTime");
+
+    private RelevancePager() {
+    }
+
+    /**
+     * 按相关度降序的排序方式，由Controller根据sortBy参数构建
+     */
+    public static Sort sort() {
+        return Sort.by(Sort.Direction.DESC, RELEVANCE);
+    }
+
+    /**
+     * 是否要求按相关度排序
+     */
+    public static boolean isRequested(Sort sort) {
+        return sort.getOrderFor(RELEVANCE) != null;
+    }
+
+    /**
+     * 没有搜索文本或索引尚未就绪时改为按创建时间倒序，其余分页参数不变
+     */
+    public static Pageable fallback(Pageable pageable) {
+        return isRequested(pageable.getSort())
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), FALLBACK_SORT)
+                : pageable;
+    }
+
+    /**
+     * 游标分页不支持按相关度排序，改为按创建时间倒序
+     */
+    public static Sort fallback(Sort sort) {
+        return isRequested(sort) ? FALLBACK_SORT : sort;
+    }
+
+    /**
+     * 按相关度分页
+     * @param rankedIds 按相似度降序排列的全部候选ID
+     * @param pageable 分页参数，只使用页码和每页条数
+     * @param loader 按ID读取记录的方法，返回顺序任意
+     * @param idOf 取记录ID的方法
+     * @return 按相似度排列的当前页
+     */
+    public static <T> Page<T> page(List<Long> rankedIds, Pageable pageable,
+                                   Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        long offset = pageable.getOffset();
+        if (offset >= rankedIds.size()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, rankedIds.size());
+        }
+        List<Long> pageIds = rankedIds.subList((int) offset,
+                (int) Math.min(offset + pageable.getPageSize(), rankedIds.size()));
+
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : loader.apply(pageIds)) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> content = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            // 索引更新在提交后进行，刚删除的记录可能仍在候选中，直接跳过
+            T row = byId.get(id);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return new PageImpl<>(content, pageable, rankedIds.size());
+    }
+
+    /**
+     * ID在给定集合中的查询条件，用于按ID读取当前页
+     */
+    public static <T> Specification<T> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+}
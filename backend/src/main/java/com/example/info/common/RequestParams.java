@@ -0,0 +1,35 @@
+package com.example.info.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表接口的公共请求参数处理
+ */
+public final class RequestParams {
+
+    private RequestParams() {
+    }
+
+    /**
+     * 合并单个标签参数tagId（0表示不过滤，兼容旧接口）与多标签参数tagIds
+     * @return 需要过滤的标签ID列表，可能为空
+     */
+    public static List<Long> tagIds(Long tagId, List<Long> tagIds) {
+        List<Long> merged = new ArrayList<>();
+        if (tagIds != null) {
+            tagIds.stream().filter(id -> id != null && id != 0).distinct().forEach(merged::add);
+        }
+        if (tagId != null && tagId != 0 && !merged.contains(tagId)) {
+            merged.add(tagId);
+        }
+        return merged;
+    }
+
+    /**
+     * 多标签匹配方式：or表示包含任意一个标签，其余（默认and）表示必须包含全部标签
+     */
+    public static boolean matchAllTags(String tagMode) {
+        return !"or".equalsIgnoreCase(tagMode);
+    }
+}
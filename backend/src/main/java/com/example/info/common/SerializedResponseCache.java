@@ -0,0 +1,246 @@
+package com.example.info.common;
+
+import com.example.info.dto.CacheStatsDTO;
+import com.example.info.stats.ModificationWatermarks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 热点GET接口的序列化结果缓存
+ * 按"请求路径 + 排序后的参数"缓存已经序列化好的JSON字节（较大的结果同时保存gzip压缩版本），
+ * 命中时直接把字节写回客户端，不再执行查询和Jackson序列化。
+ * 每个条目记录生成时数据类型的版本号，版本号由ModificationWatermarks在写入提交后递增，版本不一致即视为失效；
+ * 另设过期时间，兜底浏览量等不推进版本号的变化
+ */
+@Component
+public class SerializedResponseCache {
+
+    // 命中时一并返回的响应头
+    private static final List<String> CACHED_HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CACHE_CONTROL);
+
+    private final ModificationWatermarks watermarks;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final int gzipMinBytes;
+
+    // 按访问顺序淘汰最久未使用的条目
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public SerializedResponseCache(ModificationWatermarks watermarks, ObjectMapper objectMapper,
+                                   @Value("${response-cache.max-entries:1000}") int maxEntries,
+                                   @Value("${response-cache.ttl-ms:60000}") long ttlMillis,
+                                   @Value("${response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.watermarks = watermarks;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.gzipMinBytes = gzipMinBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SerializedResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查找缓存，结果依赖某一数据类型
+     */
+    public Lookup lookup(WebRequest request, Class<?> type) {
+        return lookup(request, () -> watermarks.version(type));
+    }
+
+    /**
+     * 查找缓存，结果依赖所有数据类型（如Dashboard统计）
+     */
+    public Lookup lookupAll(WebRequest request) {
+        return lookup(request, watermarks::totalVersion);
+    }
+
+    private Lookup lookup(WebRequest webRequest, LongSupplier version) {
+        ServletWebRequest servletRequest = (ServletWebRequest) webRequest;
+        HttpServletRequest request = servletRequest.getRequest();
+        HttpServletResponse response = servletRequest.getResponse();
+        String key = key(request);
+        // 先读版本号再生成结果：生成期间发生的修改会推进版本号，使本次写入的条目在下次读取时失效
+        long currentVersion = version.getAsLong();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && (entry.version != currentVersion || entry.expiresAt < System.currentTimeMillis())) {
+            entry = null;
+        }
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return new Lookup(key, currentVersion, entry, request, response);
+    }
+
+    public CacheStatsDTO stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStatsDTO("response", size, watermarks.totalVersion(), hits.sum(), misses.sum());
+    }
+
+    /**
+     * 缓存键：请求路径 + 按名称排序的查询参数
+     */
+    private static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        char separator = '?';
+        for (Map.Entry<String, String[]> param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : param.getValue()) {
+                key.append(separator).append(param.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private static ResponseEntity<byte[]> toResponse(Entry entry, HttpServletRequest request) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        entry.headers.forEach(builder::header);
+        if (entry.gzipped == null) {
+            return builder.body(entry.json);
+        }
+        builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzipped);
+        }
+        return builder.body(entry.json);
+    }
+
+    /**
+     * 一次缓存查找的结果
+     */
+    public class Lookup {
+        private final String key;
+        private final long version;
+        private final Entry entry;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private Lookup(String key, long version, Entry entry, HttpServletRequest request,
+                       HttpServletResponse response) {
+            this.key = key;
+            this.version = version;
+            this.entry = entry;
+            this.request = request;
+            this.response = response;
+        }
+
+        public boolean isHit() {
+            return entry != null;
+        }
+
+        /**
+         * 命中时返回缓存的字节
+         */
+        public ResponseEntity<byte[]> cached() {
+            return toResponse(entry, request);
+        }
+
+        /**
+         * 序列化新生成的结果并写入缓存
+         */
+        public ResponseEntity<byte[]> store(Object body) {
+            return store(body, true);
+        }
+
+        /**
+         * 序列化新生成的结果，按需写入缓存
+         * @param body 响应内容
+         * @param cacheable 为false时只序列化返回，不写入缓存
+         */
+        public ResponseEntity<byte[]> store(Object body, boolean cacheable) {
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(body);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize response", e);
+            }
+            byte[] gzipped = cacheable && json.length >= gzipMinBytes ? gzip(json) : null;
+            if (cacheable) {
+                // 保存调用方已经设置的ETag等响应头，命中时一并返回
+                Map<String, String> headers = new LinkedHashMap<>();
+                if (response != null) {
+                    for (String name : CACHED_HEADERS) {
+                        String value = response.getHeader(name);
+                        if (value != null) {
+                            headers.put(name, value);
+                        }
+                    }
+                }
+                Entry created = new Entry(version, System.currentTimeMillis() + ttlMillis, json, gzipped, headers);
+                synchronized (entries) {
+                    entries.put(key, created);
+                }
+            }
+            // 本次请求的响应头已经写入response，这里不再重复设置
+            return toResponse(new Entry(version, 0, json, gzipped, Map.of()), request);
+        }
+    }
+
+    private static class Entry {
+        final long version;
+        final long expiresAt;
+        final byte[] json;
+        final byte[] gzipped;
+        final Map<String, String> headers;
+
+        Entry(long version, long expiresAt, byte[] json, byte[] gzipped, Map<String, String> headers) {
+            this.version = version;
+            this.expiresAt = expiresAt;
+            this.json = json;
+            this.gzipped = gzipped;
+            this.headers = headers;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.info.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同的并发调用
+ * 同一个key同时只有一次计算在执行，执行期间到达的调用等待并共享其结果（或异常）；
+ * 计算完成后立即移除，之后的调用重新计算。
+ * 每次计算记录开始时数据的写入代数（如修改水位的版本号），调用只加入代数不低于自身的计算，
+ * 因此写入提交并推进代数之后到达的调用不会拿到写入之前开始的计算结果；
+ * 代数在事务提交后才推进，提交到推进之间到达的调用仍可能共享旧的计算
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 不区分写入代数，加入任何正在进行的相同调用
+     */
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, 0, loader);
+    }
+
+    /**
+     * @param key 调用的标识，相等的key视为相同的调用
+     * @param generation 调用时数据的写入代数，只随写入递增
+     * @param loader 实际的计算
+     * @return 本次或同时进行的那次计算的结果
+     */
+    public V execute(K key, long generation, Supplier<V> loader) {
+        Call<V> call = new Call<>(generation);
+        while (true) {
+            Call<V> existing = calls.putIfAbsent(key, call);
+            if (existing == null) {
+                break;
+            }
+            if (existing.generation >= generation) {
+                return await(existing.future);
+            }
+            // 正在进行的计算开始于最近一次写入之前，由本次调用重新计算，已在等待的调用仍使用旧计算的结果
+            if (calls.replace(key, existing, call)) {
+                break;
+            }
+        }
+        try {
+            V value = loader.get();
+            call.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 正在执行的计算数
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Call<V> {
+        private final long generation;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        Call(long generation) {
+            this.generation = generation;
+        }
+    }
+}
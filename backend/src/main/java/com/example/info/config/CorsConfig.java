@@ -10,8 +10,9 @@ public class CorsConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**") // 允许所有接口
                 .allowedOrigins("http://localhost:5173") // 允许前端域名
-                .allowedMethods("GET", "POST", "PUT", "DELETE") // 允许所有请求方法
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE") // 允许所有请求方法
                 .allowedHeaders("*") // 允许所有请求头
+                .exposedHeaders("ETag", "Last-Modified") // 前端可读取条件GET的校验头
                 .maxAge(3600); // 预检请求缓存时间（1小时，减少重复验证）
     }
 }
\ No newline at end of file
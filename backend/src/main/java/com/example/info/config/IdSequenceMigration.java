@@ -0,0 +1,101 @@
+package com.example.info.config;
+
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.TableStructure;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 主键生成方式从自增列迁移到池化序列后的数据对齐
+ * MySQL不支持序列，Hibernate为每个实体使用一张单行表（如article_seq）模拟序列，每次取出一段ID在内存中分配，
+ * 插入时不再需要逐行回读自增主键，JDBC批量插入才能生效。
+ * 启动时把每张序列表的下一个值推进到对应数据表现有最大ID之后，避免与迁移前的数据冲突；该操作是幂等的
+ */
+@Slf4j
+@Component
+public class IdSequenceMigration {
+
+    // Hibernate序列表中保存下一个值的列名
+    private static final String VALUE_COLUMN = "next_val";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceMigration(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (!(persister.getGenerator() instanceof SequenceStyleGenerator generator)
+                    || !(generator.getDatabaseStructure() instanceof TableStructure structure)
+                    || !(persister instanceof AbstractEntityPersister entityPersister)) {
+                return;
+            }
+            String sequenceTable = structure.getPhysicalName().render();
+            String table = entityPersister.getTableName();
+            String idColumn = entityPersister.getIdentifierColumnNames()[0];
+            int updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET " + VALUE_COLUMN
+                    + " = GREATEST(" + VALUE_COLUMN + ", (SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table + "))");
+            log.debug("Aligned id sequence {} with {} ({} rows)", sequenceTable, table, updated);
+        });
+    }
+
+    /**
+     * 快照恢复会用快照中的值覆盖序列表，而各实体的优化器仍持有恢复前取出的ID段，
+     * 用完后从被回退的序列值继续取段，分配出的ID会与恢复后新插入的行冲突。
+     * 恢复后先重新对齐序列表，再丢弃每个优化器内存中剩余的ID，使其从对齐后的序列表取新段；
+     * 先于其他监听器执行，它们重建数据时已使用新的ID段
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onSnapshotRestored() {
+        alignSequences();
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (SessionImplementor session = sessionFactory.openSession()) {
+            sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+                if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                        && generator.getDatabaseStructure() instanceof TableStructure structure) {
+                    discardAllocatedIds(generator.getOptimizer(), structure.buildCallback(session));
+                }
+            });
+        }
+    }
+
+    /**
+     * 逐个取出优化器当前ID段中剩余的ID，直到它从序列表取得新的ID段；取出的ID不会被使用
+     */
+    private static void discardAllocatedIds(Optimizer optimizer, AccessCallback callback) {
+        IntegralDataTypeHolder lastSourceValue;
+        try {
+            lastSourceValue = optimizer.getLastSourceValue();
+        } catch (IllegalStateException e) {
+            // pooled-lo优化器尚未取过ID段时抛出该异常，下次分配时会直接读取序列表
+            return;
+        }
+        if (lastSourceValue == null) {
+            return;
+        }
+        IntegralDataTypeHolder stale = lastSourceValue.copy();
+        for (int i = 0; i <= optimizer.getIncrementSize() && stale.eq(optimizer.getLastSourceValue()); i++) {
+            optimizer.generate(callback);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.info.config;
+
+import com.example.info.snapshot.RestoreGate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class RestoreGateConfig implements WebMvcConfigurer {
+
+    private final RestoreGate restoreGate;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(restoreGate)
+                .addPathPatterns("/api/**")
+                // 快照接口自身不受限制：恢复请求在处理中获取写锁，不能先持有读锁
+                .excludePathPatterns("/api/admin/snapshots/**");
+    }
+}
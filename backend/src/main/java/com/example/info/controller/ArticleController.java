@@ -1,16 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.common.SerializedResponseCache;
+import com.example.info.dto.FacetedResultDTO;
+import com.example.info.dto.InfoSummaryDTO;
+import com.example.info.dto.TrendingArticleDTO;
 import com.example.info.entity.Article;
 import com.example.info.entity.Category;
 import com.example.info.service.ArticleService;
+import com.example.info.stats.ArticleViewCounter;
+import com.example.info.stats.TrendingArticles;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文章管理控制器
@@ -24,12 +41,34 @@ public class ArticleController {
     // 文章服务层对象，通过构造函数注入
     private final ArticleService articleService;
 
+    // 文章浏览量的写回缓冲
+    private final ArticleViewCounter articleViewCounter;
+
+    // 最近一段时间内的热门文章统计
+    private final TrendingArticles trendingArticles;
+
+    // 条件GET（ETag/Last-Modified）支持
+    private final ConditionalRequests conditionalRequests;
+
+    // 已发布公开文章详情的序列化结果缓存
+    private final SerializedResponseCache responseCache;
+
     /**
      * 构造函数，实现服务层依赖注入
      * @param articleService 文章服务层对象
+     * @param articleViewCounter 文章浏览量的写回缓冲
+     * @param trendingArticles 热门文章统计
+     * @param conditionalRequests 条件GET支持
+     * @param responseCache 序列化结果缓存
      */
-    public ArticleController(ArticleService articleService) {
+    public ArticleController(ArticleService articleService, ArticleViewCounter articleViewCounter,
+                             TrendingArticles trendingArticles, ConditionalRequests conditionalRequests,
+                             SerializedResponseCache responseCache) {
         this.articleService = articleService;
+        this.articleViewCounter = articleViewCounter;
+        this.trendingArticles = trendingArticles;
+        this.conditionalRequests = conditionalRequests;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -45,6 +84,19 @@ public class ArticleController {
         return ResponseResult.success(savedArticle);
     }
 
+    /**
+     * 批量创建文章
+     * @param articles 前端传递的文章数组（JSON格式）
+     * @return 包含新文章ID列表的响应对象
+     */
+    @PostMapping("/bulk") // 处理POST请求，映射路径：/api/articles/bulk
+    public ResponseResult<List<Long>> createArticles(@RequestBody List<Article> articles) {
+        // 调用服务层批量创建文章
+        List<Long> ids = articleService.createArticles(articles);
+        // 返回成功响应，包含新文章的ID
+        return ResponseResult.success(ids);
+    }
+
     /**
      * 根据ID删除文章
      * @param id 路径中的文章ID
@@ -58,16 +110,67 @@ public class ArticleController {
         return ResponseResult.success("删除成功");
     }
 
+    /**
+     * 按ID批量删除文章
+     * @param ids 要删除的文章ID列表（如 ids=1,2,3）
+     * @return 包含实际删除数量的响应对象
+     */
+    @DeleteMapping // 处理DELETE请求，映射路径：/api/articles?ids=
+    public ResponseResult<Integer> deleteArticles(@RequestParam List<Long> ids) {
+        int deleted = articleService.deleteArticles(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    /**
+     * 批量删除满足过滤条件的文章，过滤参数与列表查询相同，至少需要一个条件
+     * @return 包含实际删除数量的响应对象
+     */
+    @PostMapping("/bulk-delete") // 处理POST请求，映射路径：/api/articles/bulk-delete
+    public ResponseResult<Integer> deleteArticlesByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "all") String status,
+            @RequestParam(required = false, defaultValue = "all") String visibility,
+            @RequestParam(required = false, defaultValue = "0") Integer categoryId,
+            @RequestParam(required = false, defaultValue = "0") Integer tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = articleService.deleteArticles(searchText, status, categoryId, visibility,
+                RequestParams.tagIds(tagId.longValue(), tagIds), RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    /**
+     * 批量修改满足过滤条件的文章，过滤参数与列表查询相同，至少需要一个条件
+     * @param changes 要修改的字段及新值（JSON格式，如 {"status": "PUBLISHED"}）
+     * @return 包含实际修改数量的响应对象
+     */
+    @PostMapping("/bulk-update") // 处理POST请求，映射路径：/api/articles/bulk-update
+    public ResponseResult<Integer> updateArticles(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "all") String status,
+            @RequestParam(required = false, defaultValue = "all") String visibility,
+            @RequestParam(required = false, defaultValue = "0") Integer categoryId,
+            @RequestParam(required = false, defaultValue = "0") Integer tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = articleService.updateArticles(searchText, status, categoryId, visibility,
+                RequestParams.tagIds(tagId.longValue(), tagIds), RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     /**
      * 更新文章信息
      * @param id 路径中的文章ID
-     * @param article 包含更新信息的文章实体（JSON格式）
+     * @param article 包含更新信息的文章JSON，只更新其中出现的字段
      * @return 包含更新结果的响应对象
      */
     @PutMapping("/{id}") // 处理PUT请求，映射路径：/api/admin/articles/{id}
     public ResponseResult<Article> updateArticle(
             @PathVariable Long id,
-            @RequestBody Article article
+            @RequestBody Map<String, Object> article
     ) {
         // 调用服务层更新文章
         Article updatedArticle = articleService.updateArticle(id, article);
@@ -75,6 +178,21 @@ public class ArticleController {
         return ResponseResult.success(updatedArticle);
     }
 
+    /**
+     * 按JSON Merge Patch语义修改文章，只修改请求体中出现的字段
+     * @param id 路径中的文章ID
+     * @param patch 字段名 -> 新值，值为null表示清空该字段；categoryId修改分类，tagIds替换标签
+     * @return 包含修改结果的响应对象
+     */
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Article> patchArticle(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Article patchedArticle = articleService.patchArticle(id, patch);
+        return ResponseResult.success(patchedArticle);
+    }
+
     /**
      * 多条件分页查询文章
      * 支持搜索、筛选、排序和分页功能
@@ -83,32 +201,58 @@ public class ArticleController {
      * @param visibility 可见性状态（可选，默认"all"表示全部）
      * @param categoryId 分类ID（可选，默认0表示全部）
      * @param tagId 标签ID（可选，默认0表示全部）
-     * @param sortBy 排序方式（可选，默认"createdTime-desc"）
+     * @param tagIds 多个标签ID（可选），与tagId合并
+     * @param tagMode 多标签匹配方式（可选，默认and表示包含全部标签，or表示包含任意一个）
+     * @param sortBy 排序方式（可选，默认"createdTime-desc"；"relevance"表示按搜索相关度排序）
      * @param page 页码（可选，默认0，从0开始）
      * @param size 每页条数（可选，默认10）
-     * @return 包含分页查询结果的响应对象
+     * @param after 游标（可选）；传入时使用游标分页，返回不含总数的CursorSlice，空字符串表示第一页
+     * @param facets 是否同时返回分类、标签、状态、可见性的分面计数（可选，默认false）
+     * @param request 当前请求，用于条件GET
+     * @return 包含分页查询结果的响应对象，文章自上次请求后没有修改时返回304
      */
     @GetMapping // 处理GET请求，映射路径：/api/admin/articles
-    public ResponseResult<Page<Article>> fetchArticles(
+    public ResponseResult<?> fetchArticles(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "all") String status,
             @RequestParam(required = false, defaultValue = "all") String visibility,
             @RequestParam(required = false, defaultValue = "0") Integer categoryId,
             @RequestParam(required = false, defaultValue = "0") Integer tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean facets,
+            WebRequest request
     ) {
+        // 文章自上次请求后没有任何修改时直接返回304，不执行查询
+        if (conditionalRequests.checkNotModified(request, Article.class)) {
+            return null;
+        }
         // 构建排序对象
         Sort sort = buildSort(sortBy);
+        // 合并单标签与多标签参数
+        List<Long> tags = RequestParams.tagIds(tagId.longValue(), tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        // 需要分面统计时，与列表结果一起返回
+        Map<String, Map<String, Long>> facetCounts = facets ? articleService.fetchArticleFacets(searchText, status, categoryId, visibility, tags, matchAllTags) : null;
+        // 游标分页模式：按"排序字段 + id"定位下一页，避免深分页的OFFSET扫描和COUNT查询
+        if (after != null) {
+            CursorSlice<InfoSummaryDTO> slice = articleService.fetchArticleSummariesAfter(
+                    searchText, status, categoryId, visibility, tags, matchAllTags, sort, after, size
+            );
+            return ResponseResult.success(facets ? new FacetedResultDTO<>(slice, facetCounts) : slice);
+        }
         // 构建分页参数对象
         Pageable pageable = PageRequest.of(page, size, sort);
-        // 调用服务层进行多条件分页查询
-        Page<Article> articles = articleService.fetchArticles(
-                searchText, status, categoryId, pageable, visibility, tagId
+        // 调用服务层进行多条件分页查询，列表只返回摘要，完整正文通过详情接口获取
+        Page<InfoSummaryDTO> articles = articleService.fetchArticleSummaries(
+                searchText, status, categoryId, pageable, visibility, tags, matchAllTags
         );
         // 返回成功响应，包含分页查询结果
-        return ResponseResult.success(articles);
+        return ResponseResult.success(facets ? new FacetedResultDTO<>(articles, facetCounts) : articles);
     }
 
     /**
@@ -122,6 +266,8 @@ public class ArticleController {
             return Sort.by(Sort.Direction.ASC, "createdTime"); // 按创建时间升序
         } else if ("views-desc".equals(sortBy)) {
             return Sort.by(Sort.Direction.DESC, "views"); // 按浏览量降序
+        } else if ("relevance".equals(sortBy)) {
+            return RelevancePager.sort(); // 按搜索相关度降序，没有搜索文本时按创建时间降序
         } else {
             return Sort.by(Sort.Direction.DESC, "createdTime"); // 默认按创建时间降序
         }
@@ -129,26 +275,82 @@ public class ArticleController {
 
     /**
      * 查询所有文章
+     * @param request 当前请求，用于条件GET
      * @return 包含所有文章列表的响应对象
      */
     @GetMapping("/all") // 处理GET请求，映射路径：/api/admin/articles/all
-    public ResponseResult<List<Article>> findAllArticles() {
+    public ResponseResult<List<Article>> findAllArticles(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Article.class)) {
+            return null;
+        }
         // 调用服务层查询所有文章
         List<Article> articles = articleService.findAllArticles();
         // 返回成功响应，包含文章列表
         return ResponseResult.success(articles);
     }
 
+    /**
+     * 以流的方式导出全部文章，适用于数据量较大的场景
+     * 不包装为ResponseResult，直接输出JSON数组；format=ndjson时每行一篇文章
+     * @param format 输出格式（可选，json或ndjson，默认json）
+     * @param response HTTP响应
+     */
+    @GetMapping("/all/stream") // 处理GET请求，映射路径：/api/articles/all/stream
+    public void streamAllArticles(@RequestParam(defaultValue = "json") String format,
+                                  HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        articleService.streamAllArticles(response.getOutputStream(), ndjson);
+    }
+
+    /**
+     * 查询热门文章
+     * @param window 时间窗口（可选，hour、day或week，默认day）
+     * @param limit 返回条数（可选，默认10，最多100）
+     * @return 包含热门文章及其估计浏览次数的响应对象
+     */
+    @GetMapping("/trending") // 处理GET请求，映射路径：/api/articles/trending
+    public ResponseResult<List<TrendingArticleDTO>> fetchTrendingArticles(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<TrendingArticleDTO> articles = articleService.fetchTrendingArticles(window, Math.max(1, Math.min(limit, 100)));
+        return ResponseResult.success(articles);
+    }
+
     /**
      * 根据ID查询文章详情
      * @param id 路径中的文章ID
-     * @return 包含文章详情的响应对象
+     * @param request 当前请求，用于条件GET
+     * @return 包含文章详情的JSON响应，文章没有修改时返回304
      */
     @GetMapping("/{id}") // 处理GET请求，映射路径：/api/admin/articles/{id}
-    public ResponseResult<Article> fetchArticleById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> fetchArticleById(@PathVariable Long id, WebRequest request) {
+        // 客户端缓存仍然有效时不加载文章，但同样记为一次浏览
+        if (conditionalRequests.checkNotModified(request, Article.class, id)) {
+            articleViewCounter.record(id);
+            trendingArticles.record(id);
+            return null;
+        }
+        // 服务端缓存了序列化结果时直接返回，只有已发布的公开文章会被缓存
+        SerializedResponseCache.Lookup lookup = responseCache.lookup(request, Article.class);
+        if (lookup.isHit()) {
+            articleViewCounter.record(id);
+            trendingArticles.record(id);
+            return lookup.cached();
+        }
         // 调用服务层根据ID查询文章
         Article article = articleService.fetchArticleById(id);
+        // 记录一次浏览，由浏览计数器异步批量写入数据库
+        if (article != null) {
+            articleViewCounter.record(id);
+            trendingArticles.record(id);
+        }
+        conditionalRequests.writeValidators(request, article);
+        boolean cacheable = article != null && article.getStatus() == Article.Status.PUBLISHED
+                && article.getVisibility() == Article.Visibility.PUBLIC;
         // 返回成功响应，包含文章详情
-        return ResponseResult.success(article);
+        return lookup.store(ResponseResult.success(article), cacheable);
     }
 }
\ No newline at end of file
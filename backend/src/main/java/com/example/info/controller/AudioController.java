@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Audio;
 import com.example.info.service.AudioService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/audios")
 @RequiredArgsConstructor
 public class AudioController {
     private final AudioService audioService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Audio> createAudio(@RequestBody Audio audio) {
@@ -24,34 +35,97 @@ public class AudioController {
         return ResponseResult.success(savedAudio);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createAudios(@RequestBody List<Audio> audios) {
+        List<Long> ids = audioService.createAudios(audios);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteAudio(@PathVariable Long id) {
         audioService.deleteAudio(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteAudios(@RequestParam List<Long> ids) {
+        int deleted = audioService.deleteAudios(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteAudiosByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = audioService.deleteAudios(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateAudios(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = audioService.updateAudios(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Audio> updateAudio(
             @PathVariable Long id,
-            @RequestBody Audio audio
+            @RequestBody Map<String, Object> audio
     ) {
         Audio updatedAudio = audioService.updateAudio(id, audio);
         return ResponseResult.success(updatedAudio);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Audio> patchAudio(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Audio patchedAudio = audioService.patchAudio(id, patch);
+        return ResponseResult.success(patchedAudio);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Audio>> fetchAudios(
+    public ResponseResult<?> fetchAudios(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Audio.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = audioService.fetchAudioSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Audio> audios = audioService.fetchAudios(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> audios = audioService.fetchAudioSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(audios);
     }
 
@@ -68,14 +142,30 @@ public class AudioController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Audio>> findAllAudios() {
+    public ResponseResult<List<Audio>> findAllAudios(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Audio.class)) {
+            return null;
+        }
         List<Audio> audios = audioService.findAllAudios();
         return ResponseResult.success(audios);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllAudios(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        audioService.streamAllAudios(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Audio> fetchAudioById(@PathVariable Long id) {
+    public ResponseResult<Audio> fetchAudioById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Audio.class, id)) {
+            return null;
+        }
         Audio audio = audioService.findById(id);
+        conditionalRequests.writeValidators(request, audio);
         return ResponseResult.success(audio);
     }
 }
@@ -1,10 +1,13 @@
 package com.example.info.controller;
 
 import com.example.info.common.ResponseResult;
+import com.example.info.common.SerializedResponseCache;
 import com.example.info.entity.Category;
 import com.example.info.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -13,6 +16,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryController {
     private final CategoryService categoryService;
+    private final SerializedResponseCache responseCache;
 
     @PostMapping
     public ResponseResult<Category> createCategory(@RequestBody Category category) {
@@ -36,22 +40,20 @@ public class CategoryController {
     }
 
     @GetMapping
-    public ResponseResult<?> fetchCategories(
+    public ResponseEntity<byte[]> fetchCategories(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String searchText
+            @RequestParam(required = false) String searchText,
+            WebRequest request
     ) {
-        List<Category> categories = categoryService.findAllCategories();
-        
-        // 如果有搜索文本，进行过滤
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            String search = searchText.toLowerCase();
-            categories = categories.stream()
-                .filter(c -> c.getName().toLowerCase().contains(search) || 
-                           (c.getDescription() != null && c.getDescription().toLowerCase().contains(search)))
-                .collect(java.util.stream.Collectors.toList());
+        // 同一组参数的序列化结果在分类修改前一直有效
+        SerializedResponseCache.Lookup lookup = responseCache.lookup(request, Category.class);
+        if (lookup.isHit()) {
+            return lookup.cached();
         }
-        
+        // 分类从进程内缓存中筛选，不访问数据库
+        List<Category> categories = categoryService.searchCategories(searchText);
+
         // 构建分页响应
         int total = categories.size();
         int start = page * size;
@@ -65,13 +67,17 @@ public class CategoryController {
         response.put("number", page);
         response.put("size", size);
         
-        return ResponseResult.success(response);
+        return lookup.store(ResponseResult.success(response));
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Category>> findAllCategories() {
+    public ResponseEntity<byte[]> findAllCategories(WebRequest request) {
+        SerializedResponseCache.Lookup lookup = responseCache.lookup(request, Category.class);
+        if (lookup.isHit()) {
+            return lookup.cached();
+        }
         List<Category> categories = categoryService.findAllCategories();
-        return ResponseResult.success(categories);
+        return lookup.store(ResponseResult.success(categories));
     }
 
     @GetMapping("/{id}")
@@ -1,48 +1,120 @@
 package com.example.info.controller;
 
 import com.example.info.common.ResponseResult;
+import com.example.info.common.SerializedResponseCache;
+import com.example.info.common.SingleFlight;
+import com.example.info.dto.ActivityBucketDTO;
+import com.example.info.dto.CacheRegionStatsDTO;
+import com.example.info.dto.CacheStatsDTO;
 import com.example.info.dto.DashboardStatsDTO;
-import com.example.info.repository.*;
+import com.example.info.entity.*;
+import com.example.info.service.ReferenceDataCache;
+import com.example.info.stats.ActivityRollups;
+import com.example.info.stats.EntityCounters;
+import com.example.info.stats.ModificationWatermarks;
+import com.example.info.stats.SecondLevelCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/dashboard")
 @RequiredArgsConstructor
 public class DashboardController {
 
-    private final ArticleRepository articleRepository;
-    private final MemoRepository memoRepository;
-    private final VideoRepository videoRepository;
-    private final AudioRepository audioRepository;
-    private final WebsiteRepository websiteRepository;
-    private final ExpenseRepository expenseRepository;
-    private final TravelPlanRepository travelPlanRepository;
-    private final StudyCheckInRepository studyCheckInRepository;
-    private final CategoryRepository categoryRepository;
-    private final TagRepository tagRepository;
+    // 内存中的记录数计数器，不需要每次查询数据库
+    private final EntityCounters entityCounters;
+
+    // 按天预聚合的创建/修改统计
+    private final ActivityRollups activityRollups;
+
+    // 分类和标签的进程内缓存
+    private final ReferenceDataCache referenceDataCache;
+
+    // Hibernate二级缓存
+    private final SecondLevelCache secondLevelCache;
+
+    // 序列化结果缓存
+    private final SerializedResponseCache responseCache;
+
+    // 各类型的修改水位，任何类型的写入提交后到达的请求不共享之前开始的统计
+    private final ModificationWatermarks watermarks;
+
+    // 缓存失效后同时到达的统计请求只计算一次（计数器未初始化时会查询数据库）
+    private final SingleFlight<String, DashboardStatsDTO> statsLoads = new SingleFlight<>();
 
     /**
      * 获取Dashboard统计数据
      */
     @GetMapping("/stats")
-    public ResponseResult<DashboardStatsDTO> getStats() {
-        DashboardStatsDTO stats = new DashboardStatsDTO(
-            articleRepository.count(),
-            memoRepository.count(),
-            videoRepository.count(),
-            audioRepository.count(),
-            websiteRepository.count(),
-            expenseRepository.count(),
-            travelPlanRepository.count(),
-            studyCheckInRepository.count(),
-            categoryRepository.count(),
-            tagRepository.count()
+    public ResponseEntity<byte[]> getStats(WebRequest request) {
+        // 统计依赖所有类型，任何类型修改后失效
+        SerializedResponseCache.Lookup lookup = responseCache.lookupAll(request);
+        if (lookup.isHit()) {
+            return lookup.cached();
+        }
+        DashboardStatsDTO stats = statsLoads.execute("stats", watermarks.totalVersion(), this::buildStats);
+        return lookup.store(ResponseResult.success(stats));
+    }
+
+    private DashboardStatsDTO buildStats() {
+        return new DashboardStatsDTO(
+            entityCounters.count(Article.class),
+            entityCounters.count(Memo.class),
+            entityCounters.count(Video.class),
+            entityCounters.count(Audio.class),
+            entityCounters.count(Website.class),
+            entityCounters.count(Expense.class),
+            entityCounters.count(TravelPlan.class),
+            entityCounters.count(StudyCheckIn.class),
+            entityCounters.count(Todo.class),
+            entityCounters.count(Diary.class),
+            entityCounters.count(Category.class),
+            entityCounters.count(Tag.class)
         );
-        
+    }
+
+    /**
+     * 获取时间范围内各类型的创建数和修改数，用于活动热力图
+     * @param from 开始日期（可选，默认结束日期前29天）
+     * @param to 结束日期（可选，默认今天）
+     * @param bucket 汇总粒度：day、week或month（默认day）
+     */
+    @GetMapping("/activity")
+    public ResponseResult<List<ActivityBucketDTO>> getActivity(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String bucket
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseResult.success(activityRollups.histogram(start, end, bucket));
+    }
+
+    /**
+     * 获取分类标签缓存、序列化结果缓存的命中统计
+     */
+    @GetMapping("/cache")
+    public ResponseResult<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>(referenceDataCache.stats());
+        stats.add(responseCache.stats());
         return ResponseResult.success(stats);
     }
-}
 
+    /**
+     * 获取Hibernate二级缓存各区域的命中、驱逐统计
+     */
+    @GetMapping("/second-level-cache")
+    public ResponseResult<List<CacheRegionStatsDTO>> getSecondLevelCacheStats() {
+        return ResponseResult.success(secondLevelCache.stats());
+    }
+}
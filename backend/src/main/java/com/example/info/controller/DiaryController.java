@@ -1,16 +1,28 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.FacetedResultDTO;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Diary;
 import com.example.info.service.DiaryService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Diary控制器
@@ -20,6 +32,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DiaryController {
     private final DiaryService diaryService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Diary> createDiary(@RequestBody Diary diary) {
@@ -27,37 +40,107 @@ public class DiaryController {
         return ResponseResult.success(savedDiary);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createDiaries(@RequestBody List<Diary> diaries) {
+        List<Long> ids = diaryService.createDiaries(diaries);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteDiary(@PathVariable Long id) {
         diaryService.deleteDiary(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteDiaries(@RequestParam List<Long> ids) {
+        int deleted = diaryService.deleteDiaries(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteDiariesByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestParam(required = false) String mood,
+            @RequestParam(required = false) String weather
+    ) {
+        int deleted = diaryService.deleteDiaries(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), mood, weather);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateDiaries(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestParam(required = false) String mood,
+            @RequestParam(required = false) String weather,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = diaryService.updateDiaries(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), mood, weather, changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Diary> updateDiary(
             @PathVariable Long id,
-            @RequestBody Diary diary
+            @RequestBody Map<String, Object> diary
     ) {
         Diary updatedDiary = diaryService.updateDiary(id, diary);
         return ResponseResult.success(updatedDiary);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Diary> patchDiary(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Diary patchedDiary = diaryService.patchDiary(id, patch);
+        return ResponseResult.success(patchedDiary);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Diary>> fetchDiaries(
+    public ResponseResult<?> fetchDiaries(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false) String mood,
             @RequestParam(required = false) String weather,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean facets,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Diary.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        // 需要分面统计时，与列表结果一起返回
+        Map<String, Map<String, Long>> facetCounts = facets ? diaryService.fetchDiaryFacets(searchText, categoryId, tags, matchAllTags, mood, weather) : null;
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = diaryService.fetchDiarySummariesAfter(searchText, categoryId, tags, matchAllTags, mood, weather, sort, after, size);
+            return ResponseResult.success(facets ? new FacetedResultDTO<>(slice, facetCounts) : slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Diary> diaries = diaryService.fetchDiaries(searchText, categoryId, tagId, mood, weather, pageable);
-        return ResponseResult.success(diaries);
+        Page<InfoSummaryDTO> diaries = diaryService.fetchDiarySummaries(searchText, categoryId, tags, matchAllTags, mood, weather, pageable);
+        return ResponseResult.success(facets ? new FacetedResultDTO<>(diaries, facetCounts) : diaries);
     }
 
     private Sort buildSort(String sortBy) {
@@ -65,20 +148,38 @@ public class DiaryController {
             return Sort.by(Sort.Direction.ASC, "createdTime");
         } else if ("title-asc".equals(sortBy)) {
             return Sort.by(Sort.Direction.ASC, "title");
+        } else if ("relevance".equals(sortBy)) {
+            return RelevancePager.sort();
         } else {
             return Sort.by(Sort.Direction.DESC, "createdTime");
         }
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Diary>> findAllDiaries() {
+    public ResponseResult<List<Diary>> findAllDiaries(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Diary.class)) {
+            return null;
+        }
         List<Diary> diaries = diaryService.findAllDiaries();
         return ResponseResult.success(diaries);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllDiaries(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        diaryService.streamAllDiaries(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Diary> fetchDiaryById(@PathVariable Long id) {
+    public ResponseResult<Diary> fetchDiaryById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Diary.class, id)) {
+            return null;
+        }
         Diary diary = diaryService.findById(id);
+        conditionalRequests.writeValidators(request, diary);
         return ResponseResult.success(diary);
     }
 }
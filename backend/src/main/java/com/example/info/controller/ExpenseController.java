@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Expense;
 import com.example.info.service.ExpenseService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/expenses")
 @RequiredArgsConstructor
 public class ExpenseController {
     private final ExpenseService expenseService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Expense> createExpense(@RequestBody Expense expense) {
@@ -24,34 +35,97 @@ public class ExpenseController {
         return ResponseResult.success(savedExpense);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createExpenses(@RequestBody List<Expense> expenses) {
+        List<Long> ids = expenseService.createExpenses(expenses);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteExpense(@PathVariable Long id) {
         expenseService.deleteExpense(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteExpenses(@RequestParam List<Long> ids) {
+        int deleted = expenseService.deleteExpenses(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteExpensesByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = expenseService.deleteExpenses(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateExpenses(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = expenseService.updateExpenses(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Expense> updateExpense(
             @PathVariable Long id,
-            @RequestBody Expense expense
+            @RequestBody Map<String, Object> expense
     ) {
         Expense updatedExpense = expenseService.updateExpense(id, expense);
         return ResponseResult.success(updatedExpense);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Expense> patchExpense(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Expense patchedExpense = expenseService.patchExpense(id, patch);
+        return ResponseResult.success(patchedExpense);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Expense>> fetchExpenses(
+    public ResponseResult<?> fetchExpenses(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Expense.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = expenseService.fetchExpenseSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Expense> expenses = expenseService.fetchExpenses(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> expenses = expenseService.fetchExpenseSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(expenses);
     }
 
@@ -68,14 +142,30 @@ public class ExpenseController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Expense>> findAllExpenses() {
+    public ResponseResult<List<Expense>> findAllExpenses(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Expense.class)) {
+            return null;
+        }
         List<Expense> expenses = expenseService.findAllExpenses();
         return ResponseResult.success(expenses);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllExpenses(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        expenseService.streamAllExpenses(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Expense> fetchExpenseById(@PathVariable Long id) {
+    public ResponseResult<Expense> fetchExpenseById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Expense.class, id)) {
+            return null;
+        }
         Expense expense = expenseService.findById(id);
+        conditionalRequests.writeValidators(request, expense);
         return ResponseResult.success(expense);
     }
 }
@@ -1,22 +1,34 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Memo;
 import com.example.info.service.MemoService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/memos")
 @RequiredArgsConstructor
 public class MemoController {
     private final MemoService memoService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Memo> createMemo(@RequestBody Memo memo) {
@@ -24,34 +36,97 @@ public class MemoController {
         return ResponseResult.success(savedMemo);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createMemos(@RequestBody List<Memo> memos) {
+        List<Long> ids = memoService.createMemos(memos);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteMemo(@PathVariable Long id) {
         memoService.deleteMemo(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteMemos(@RequestParam List<Long> ids) {
+        int deleted = memoService.deleteMemos(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteMemosByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = memoService.deleteMemos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateMemos(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = memoService.updateMemos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Memo> updateMemo(
             @PathVariable Long id,
-            @RequestBody Memo memo
+            @RequestBody Map<String, Object> memo
     ) {
         Memo updatedMemo = memoService.updateMemo(id, memo);
         return ResponseResult.success(updatedMemo);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Memo> patchMemo(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Memo patchedMemo = memoService.patchMemo(id, patch);
+        return ResponseResult.success(patchedMemo);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Memo>> fetchMemos(
+    public ResponseResult<?> fetchMemos(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Memo.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = memoService.fetchMemoSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Memo> memos = memoService.fetchMemos(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> memos = memoService.fetchMemoSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(memos);
     }
 
@@ -60,20 +135,38 @@ public class MemoController {
             return Sort.by(Sort.Direction.ASC, "createdTime");
         } else if ("title-asc".equals(sortBy)) {
             return Sort.by(Sort.Direction.ASC, "title");
+        } else if ("relevance".equals(sortBy)) {
+            return RelevancePager.sort();
         } else {
             return Sort.by(Sort.Direction.DESC, "createdTime");
         }
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Memo>> findAllMemos() {
+    public ResponseResult<List<Memo>> findAllMemos(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Memo.class)) {
+            return null;
+        }
         List<Memo> memos = memoService.findAllMemos();
         return ResponseResult.success(memos);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllMemos(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        memoService.streamAllMemos(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Memo> fetchMemoById(@PathVariable Long id) {
+    public ResponseResult<Memo> fetchMemoById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Memo.class, id)) {
+            return null;
+        }
         Memo memo = memoService.findById(id);
+        conditionalRequests.writeValidators(request, memo);
         return ResponseResult.success(memo);
     }
 }
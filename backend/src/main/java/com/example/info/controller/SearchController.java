@@ -0,0 +1,49 @@
+package com.example.info.controller;
+
+import com.example.info.common.ResponseResult;
+import com.example.info.dto.SearchResponseDTO;
+import com.example.info.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 统一搜索控制器
+ * 一次请求并发搜索所有Info类型，替代前端对各类型接口的逐个调用
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+    private final SearchService searchService;
+
+    /**
+     * 跨类型搜索
+     * @param searchText 搜索文本
+     * @param types 需要搜索的类型（可选，默认全部），如 article,todo,diary
+     * @param sortBy 排序方式：relevance（默认）或 createdTime
+     * @param size 返回条数（默认20）
+     */
+    @GetMapping
+    public ResponseResult<SearchResponseDTO> search(
+            @RequestParam String searchText,
+            @RequestParam(required = false) List<String> types,
+            @RequestParam(required = false, defaultValue = "relevance") String sortBy,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        SearchResponseDTO response = searchService.search(searchText, types, sortBy, size);
+        return ResponseResult.success(response);
+    }
+
+    /**
+     * 支持统一搜索的类型列表
+     */
+    @GetMapping("/types")
+    public ResponseResult<?> supportedTypes() {
+        return ResponseResult.success(searchService.supportedTypes());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.info.controller;
+
+import com.example.info.common.ResponseResult;
+import com.example.info.dto.SnapshotInfoDTO;
+import com.example.info.snapshot.SnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/snapshots")
+@RequiredArgsConstructor
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    /**
+     * 列出全部快照
+     */
+    @GetMapping
+    public ResponseResult<List<SnapshotInfoDTO>> listSnapshots() {
+        return ResponseResult.success(snapshotService.list());
+    }
+
+    /**
+     * 立即备份全部数据到新快照
+     */
+    @PostMapping
+    public ResponseResult<SnapshotInfoDTO> createSnapshot() {
+        return ResponseResult.success(snapshotService.backup());
+    }
+
+    /**
+     * 校验快照文件的完整性
+     */
+    @GetMapping("/{name}/verify")
+    public ResponseResult<SnapshotInfoDTO> verifySnapshot(@PathVariable String name) {
+        return ResponseResult.success(snapshotService.verify(name));
+    }
+
+    /**
+     * 从快照恢复全部数据，会覆盖快照中包含的各表的现有数据
+     * 恢复期间其他修改请求返回错误码503；恢复不是原子操作，失败后数据库处于部分恢复的不一致状态，
+     * 必须重新调用本接口直到恢复成功
+     */
+    @PostMapping("/{name}/restore")
+    public ResponseResult<SnapshotInfoDTO> restoreSnapshot(@PathVariable String name) {
+        return ResponseResult.success(snapshotService.restore(name));
+    }
+}
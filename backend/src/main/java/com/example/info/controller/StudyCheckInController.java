@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.StudyCheckIn;
 import com.example.info.service.StudyCheckInService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/study-check-ins")
 @RequiredArgsConstructor
 public class StudyCheckInController {
     private final StudyCheckInService studyCheckInService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<StudyCheckIn> createStudyCheckIn(@RequestBody StudyCheckIn studyCheckIn) {
@@ -24,34 +35,97 @@ public class StudyCheckInController {
         return ResponseResult.success(savedStudyCheckIn);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createStudyCheckIns(@RequestBody List<StudyCheckIn> studyCheckIns) {
+        List<Long> ids = studyCheckInService.createStudyCheckIns(studyCheckIns);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteStudyCheckIn(@PathVariable Long id) {
         studyCheckInService.deleteStudyCheckIn(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteStudyCheckIns(@RequestParam List<Long> ids) {
+        int deleted = studyCheckInService.deleteStudyCheckIns(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteStudyCheckInsByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = studyCheckInService.deleteStudyCheckIns(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateStudyCheckIns(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = studyCheckInService.updateStudyCheckIns(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<StudyCheckIn> updateStudyCheckIn(
             @PathVariable Long id,
-            @RequestBody StudyCheckIn studyCheckIn
+            @RequestBody Map<String, Object> studyCheckIn
     ) {
         StudyCheckIn updatedStudyCheckIn = studyCheckInService.updateStudyCheckIn(id, studyCheckIn);
         return ResponseResult.success(updatedStudyCheckIn);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<StudyCheckIn> patchStudyCheckIn(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        StudyCheckIn patchedStudyCheckIn = studyCheckInService.patchStudyCheckIn(id, patch);
+        return ResponseResult.success(patchedStudyCheckIn);
+    }
+
     @GetMapping
-    public ResponseResult<Page<StudyCheckIn>> fetchStudyCheckIns(
+    public ResponseResult<?> fetchStudyCheckIns(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, StudyCheckIn.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = studyCheckInService.fetchStudyCheckInSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<StudyCheckIn> studyCheckIns = studyCheckInService.fetchStudyCheckIns(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> studyCheckIns = studyCheckInService.fetchStudyCheckInSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(studyCheckIns);
     }
 
@@ -68,14 +142,30 @@ public class StudyCheckInController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<StudyCheckIn>> findAllStudyCheckIns() {
+    public ResponseResult<List<StudyCheckIn>> findAllStudyCheckIns(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, StudyCheckIn.class)) {
+            return null;
+        }
         List<StudyCheckIn> studyCheckIns = studyCheckInService.findAllStudyCheckIns();
         return ResponseResult.success(studyCheckIns);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllStudyCheckIns(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        studyCheckInService.streamAllStudyCheckIns(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<StudyCheckIn> fetchStudyCheckInById(@PathVariable Long id) {
+    public ResponseResult<StudyCheckIn> fetchStudyCheckInById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, StudyCheckIn.class, id)) {
+            return null;
+        }
         StudyCheckIn studyCheckIn = studyCheckInService.findById(id);
+        conditionalRequests.writeValidators(request, studyCheckIn);
         return ResponseResult.success(studyCheckIn);
     }
 }
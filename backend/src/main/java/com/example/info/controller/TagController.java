@@ -1,10 +1,13 @@
 package com.example.info.controller;
 
 import com.example.info.common.ResponseResult;
+import com.example.info.common.SerializedResponseCache;
 import com.example.info.entity.Tag;
 import com.example.info.service.TagService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -13,6 +16,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TagController {
     private final TagService tagService;
+    private final SerializedResponseCache responseCache;
 
     @PostMapping
     public ResponseResult<Tag> createTag(@RequestBody Tag tag) {
@@ -36,21 +40,20 @@ public class TagController {
     }
 
     @GetMapping
-    public ResponseResult<?> fetchTags(
+    public ResponseEntity<byte[]> fetchTags(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String searchText
+            @RequestParam(required = false) String searchText,
+            WebRequest request
     ) {
-        List<Tag> tags = tagService.findAllTags();
-        
-        // 如果有搜索文本，进行过滤
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            String search = searchText.toLowerCase();
-            tags = tags.stream()
-                .filter(t -> t.getName().toLowerCase().contains(search))
-                .collect(java.util.stream.Collectors.toList());
+        // 同一组参数的序列化结果在标签修改前一直有效
+        SerializedResponseCache.Lookup lookup = responseCache.lookup(request, Tag.class);
+        if (lookup.isHit()) {
+            return lookup.cached();
         }
-        
+        // 标签从进程内缓存中筛选，不访问数据库
+        List<Tag> tags = tagService.searchTags(searchText);
+
         // 构建分页响应
         int total = tags.size();
         int start = page * size;
@@ -64,13 +67,17 @@ public class TagController {
         response.put("number", page);
         response.put("size", size);
         
-        return ResponseResult.success(response);
+        return lookup.store(ResponseResult.success(response));
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Tag>> findAllTags() {
+    public ResponseEntity<byte[]> findAllTags(WebRequest request) {
+        SerializedResponseCache.Lookup lookup = responseCache.lookup(request, Tag.class);
+        if (lookup.isHit()) {
+            return lookup.cached();
+        }
         List<Tag> tags = tagService.findAllTags();
-        return ResponseResult.success(tags);
+        return lookup.store(ResponseResult.success(tags));
     }
 
     @GetMapping("/{id}")
@@ -1,16 +1,28 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.FacetedResultDTO;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Todo;
 import com.example.info.service.TodoService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Todo控制器
@@ -20,6 +32,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TodoController {
     private final TodoService todoService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Todo> createTodo(@RequestBody Todo todo) {
@@ -27,37 +40,107 @@ public class TodoController {
         return ResponseResult.success(savedTodo);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createTodos(@RequestBody List<Todo> todos) {
+        List<Long> ids = todoService.createTodos(todos);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteTodo(@PathVariable Long id) {
         todoService.deleteTodo(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteTodos(@RequestParam List<Long> ids) {
+        int deleted = todoService.deleteTodos(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteTodosByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer priority
+    ) {
+        int deleted = todoService.deleteTodos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), status, priority);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateTodos(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer priority,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = todoService.updateTodos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), status, priority, changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Todo> updateTodo(
             @PathVariable Long id,
-            @RequestBody Todo todo
+            @RequestBody Map<String, Object> todo
     ) {
         Todo updatedTodo = todoService.updateTodo(id, todo);
         return ResponseResult.success(updatedTodo);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Todo> patchTodo(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Todo patchedTodo = todoService.patchTodo(id, patch);
+        return ResponseResult.success(patchedTodo);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Todo>> fetchTodos(
+    public ResponseResult<?> fetchTodos(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Integer priority,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean facets,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Todo.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        // 需要分面统计时，与列表结果一起返回
+        Map<String, Map<String, Long>> facetCounts = facets ? todoService.fetchTodoFacets(searchText, categoryId, tags, matchAllTags, status, priority) : null;
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = todoService.fetchTodoSummariesAfter(searchText, categoryId, tags, matchAllTags, status, priority, sort, after, size);
+            return ResponseResult.success(facets ? new FacetedResultDTO<>(slice, facetCounts) : slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Todo> todos = todoService.fetchTodos(searchText, categoryId, tagId, status, priority, pageable);
-        return ResponseResult.success(todos);
+        Page<InfoSummaryDTO> todos = todoService.fetchTodoSummaries(searchText, categoryId, tags, matchAllTags, status, priority, pageable);
+        return ResponseResult.success(facets ? new FacetedResultDTO<>(todos, facetCounts) : todos);
     }
 
     private Sort buildSort(String sortBy) {
@@ -69,20 +152,38 @@ public class TodoController {
             return Sort.by(Sort.Direction.ASC, "deadline");
         } else if ("priority-desc".equals(sortBy)) {
             return Sort.by(Sort.Direction.DESC, "priority");
+        } else if ("relevance".equals(sortBy)) {
+            return RelevancePager.sort();
         } else {
             return Sort.by(Sort.Direction.DESC, "createdTime");
         }
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Todo>> findAllTodos() {
+    public ResponseResult<List<Todo>> findAllTodos(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Todo.class)) {
+            return null;
+        }
         List<Todo> todos = todoService.findAllTodos();
         return ResponseResult.success(todos);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllTodos(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        todoService.streamAllTodos(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Todo> fetchTodoById(@PathVariable Long id) {
+    public ResponseResult<Todo> fetchTodoById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Todo.class, id)) {
+            return null;
+        }
         Todo todo = todoService.findById(id);
+        conditionalRequests.writeValidators(request, todo);
         return ResponseResult.success(todo);
     }
 }
@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.TravelPlan;
 import com.example.info.service.TravelPlanService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/travel-plans")
 @RequiredArgsConstructor
 public class TravelPlanController {
     private final TravelPlanService travelPlanService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<TravelPlan> createTravelPlan(@RequestBody TravelPlan travelPlan) {
@@ -24,34 +35,97 @@ public class TravelPlanController {
         return ResponseResult.success(savedTravelPlan);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createTravelPlans(@RequestBody List<TravelPlan> travelPlans) {
+        List<Long> ids = travelPlanService.createTravelPlans(travelPlans);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteTravelPlan(@PathVariable Long id) {
         travelPlanService.deleteTravelPlan(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteTravelPlans(@RequestParam List<Long> ids) {
+        int deleted = travelPlanService.deleteTravelPlans(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteTravelPlansByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = travelPlanService.deleteTravelPlans(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateTravelPlans(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = travelPlanService.updateTravelPlans(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<TravelPlan> updateTravelPlan(
             @PathVariable Long id,
-            @RequestBody TravelPlan travelPlan
+            @RequestBody Map<String, Object> travelPlan
     ) {
         TravelPlan updatedTravelPlan = travelPlanService.updateTravelPlan(id, travelPlan);
         return ResponseResult.success(updatedTravelPlan);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<TravelPlan> patchTravelPlan(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        TravelPlan patchedTravelPlan = travelPlanService.patchTravelPlan(id, patch);
+        return ResponseResult.success(patchedTravelPlan);
+    }
+
     @GetMapping
-    public ResponseResult<Page<TravelPlan>> fetchTravelPlans(
+    public ResponseResult<?> fetchTravelPlans(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, TravelPlan.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = travelPlanService.fetchTravelPlanSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<TravelPlan> travelPlans = travelPlanService.fetchTravelPlans(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> travelPlans = travelPlanService.fetchTravelPlanSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(travelPlans);
     }
 
@@ -68,14 +142,30 @@ public class TravelPlanController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<TravelPlan>> findAllTravelPlans() {
+    public ResponseResult<List<TravelPlan>> findAllTravelPlans(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, TravelPlan.class)) {
+            return null;
+        }
         List<TravelPlan> travelPlans = travelPlanService.findAllTravelPlans();
         return ResponseResult.success(travelPlans);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllTravelPlans(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        travelPlanService.streamAllTravelPlans(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<TravelPlan> fetchTravelPlanById(@PathVariable Long id) {
+    public ResponseResult<TravelPlan> fetchTravelPlanById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, TravelPlan.class, id)) {
+            return null;
+        }
         TravelPlan travelPlan = travelPlanService.findById(id);
+        conditionalRequests.writeValidators(request, travelPlan);
         return ResponseResult.success(travelPlan);
     }
 }
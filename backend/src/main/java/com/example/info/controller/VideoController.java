@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Video;
 import com.example.info.service.VideoService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/videos")
 @RequiredArgsConstructor
 public class VideoController {
     private final VideoService videoService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Video> createVideo(@RequestBody Video video) {
@@ -24,34 +35,97 @@ public class VideoController {
         return ResponseResult.success(savedVideo);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createVideos(@RequestBody List<Video> videos) {
+        List<Long> ids = videoService.createVideos(videos);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteVideo(@PathVariable Long id) {
         videoService.deleteVideo(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteVideos(@RequestParam List<Long> ids) {
+        int deleted = videoService.deleteVideos(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteVideosByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = videoService.deleteVideos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateVideos(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = videoService.updateVideos(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Video> updateVideo(
             @PathVariable Long id,
-            @RequestBody Video video
+            @RequestBody Map<String, Object> video
     ) {
         Video updatedVideo = videoService.updateVideo(id, video);
         return ResponseResult.success(updatedVideo);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Video> patchVideo(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Video patchedVideo = videoService.patchVideo(id, patch);
+        return ResponseResult.success(patchedVideo);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Video>> fetchVideos(
+    public ResponseResult<?> fetchVideos(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Video.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = videoService.fetchVideoSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Video> videos = videoService.fetchVideos(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> videos = videoService.fetchVideoSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(videos);
     }
 
@@ -68,14 +142,30 @@ public class VideoController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Video>> findAllVideos() {
+    public ResponseResult<List<Video>> findAllVideos(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Video.class)) {
+            return null;
+        }
         List<Video> videos = videoService.findAllVideos();
         return ResponseResult.success(videos);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllVideos(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        videoService.streamAllVideos(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Video> fetchVideoById(@PathVariable Long id) {
+    public ResponseResult<Video> fetchVideoById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Video.class, id)) {
+            return null;
+        }
         Video video = videoService.findById(id);
+        conditionalRequests.writeValidators(request, video);
         return ResponseResult.success(video);
     }
 }
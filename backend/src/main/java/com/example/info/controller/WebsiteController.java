@@ -1,22 +1,33 @@
 package com.example.info.controller;
 
+import com.example.info.common.ConditionalRequests;
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RequestParams;
 import com.example.info.common.ResponseResult;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Website;
 import com.example.info.service.WebsiteService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/websites")
 @RequiredArgsConstructor
 public class WebsiteController {
     private final WebsiteService websiteService;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     public ResponseResult<Website> createWebsite(@RequestBody Website website) {
@@ -24,34 +35,97 @@ public class WebsiteController {
         return ResponseResult.success(savedWebsite);
     }
 
+    @PostMapping("/bulk")
+    public ResponseResult<List<Long>> createWebsites(@RequestBody List<Website> websites) {
+        List<Long> ids = websiteService.createWebsites(websites);
+        return ResponseResult.success(ids);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseResult<Void> deleteWebsite(@PathVariable Long id) {
         websiteService.deleteWebsite(id);
         return ResponseResult.success("删除成功");
     }
 
+    @DeleteMapping
+    public ResponseResult<Integer> deleteWebsites(@RequestParam List<Long> ids) {
+        int deleted = websiteService.deleteWebsites(ids);
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseResult<Integer> deleteWebsitesByFilter(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode
+    ) {
+        int deleted = websiteService.deleteWebsites(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode));
+        return ResponseResult.success(deleted);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseResult<Integer> updateWebsites(
+            @RequestParam(required = false) String searchText,
+            @RequestParam(required = false, defaultValue = "0") Long categoryId,
+            @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
+            @RequestBody Map<String, Object> changes
+    ) {
+        int updated = websiteService.updateWebsites(searchText, categoryId, RequestParams.tagIds(tagId, tagIds),
+                RequestParams.matchAllTags(tagMode), changes);
+        return ResponseResult.success(updated);
+    }
+
     @PutMapping("/{id}")
     public ResponseResult<Website> updateWebsite(
             @PathVariable Long id,
-            @RequestBody Website website
+            @RequestBody Map<String, Object> website
     ) {
         Website updatedWebsite = websiteService.updateWebsite(id, website);
         return ResponseResult.success(updatedWebsite);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseResult<Website> patchWebsite(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch
+    ) {
+        Website patchedWebsite = websiteService.patchWebsite(id, patch);
+        return ResponseResult.success(patchedWebsite);
+    }
+
     @GetMapping
-    public ResponseResult<Page<Website>> fetchWebsites(
+    public ResponseResult<?> fetchWebsites(
             @RequestParam(required = false) String searchText,
             @RequestParam(required = false, defaultValue = "0") Long categoryId,
             @RequestParam(required = false, defaultValue = "0") Long tagId,
+            @RequestParam(required = false) List<Long> tagIds,
+            @RequestParam(required = false, defaultValue = "and") String tagMode,
             @RequestParam(required = false, defaultValue = "createdTime-desc") String sortBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request
     ) {
+        // 该类型自上次请求后没有任何修改时直接返回304
+        if (conditionalRequests.checkNotModified(request, Website.class)) {
+            return null;
+        }
         Sort sort = buildSort(sortBy);
+        List<Long> tags = RequestParams.tagIds(tagId, tagIds);
+        boolean matchAllTags = RequestParams.matchAllTags(tagMode);
+        if (after != null) {
+            // 游标分页模式：after为空字符串时返回第一页
+            CursorSlice<InfoSummaryDTO> slice = websiteService.fetchWebsiteSummariesAfter(searchText, categoryId, tags, matchAllTags, sort, after, size);
+            return ResponseResult.success(slice);
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Website> websites = websiteService.fetchWebsites(searchText, categoryId, tagId, pageable);
+        Page<InfoSummaryDTO> websites = websiteService.fetchWebsiteSummaries(searchText, categoryId, tags, matchAllTags, pageable);
         return ResponseResult.success(websites);
     }
 
@@ -66,14 +140,30 @@ public class WebsiteController {
     }
 
     @GetMapping("/all")
-    public ResponseResult<List<Website>> findAllWebsites() {
+    public ResponseResult<List<Website>> findAllWebsites(WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Website.class)) {
+            return null;
+        }
         List<Website> websites = websiteService.findAllWebsites();
         return ResponseResult.success(websites);
     }
 
+    @GetMapping("/all/stream")
+    public void streamAllWebsites(@RequestParam(defaultValue = "json") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equals(format);
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        websiteService.streamAllWebsites(response.getOutputStream(), ndjson);
+    }
+
     @GetMapping("/{id}")
-    public ResponseResult<Website> fetchWebsiteById(@PathVariable Long id) {
+    public ResponseResult<Website> fetchWebsiteById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.checkNotModified(request, Website.class, id)) {
+            return null;
+        }
         Website website = websiteService.findById(id);
+        conditionalRequests.writeValidators(request, website);
         return ResponseResult.success(website);
     }
 }
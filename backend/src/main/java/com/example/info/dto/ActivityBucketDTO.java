@@ -0,0 +1,23 @@
+package com.example.info.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 活动统计中的一个时间桶
+ * created为各类型在该桶内创建的记录数，updated为最后修改时间落在该桶内的记录数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityBucketDTO {
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate start;
+    private Map<String, Long> created;
+    private Map<String, Long> updated;
+}
@@ -0,0 +1,21 @@
+package com.example.info.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 二级缓存单个区域的统计，取自JCache统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDTO {
+    private String region;
+    private Long hits;
+    private Long misses;
+    private Long puts;
+    private Long removals;
+    // 因容量不足被驱逐的条目数
+    private Long evictions;
+}
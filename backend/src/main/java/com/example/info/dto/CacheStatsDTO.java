@@ -0,0 +1,21 @@
+package com.example.info.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 进程内缓存的命中统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private String name;
+    // 当前缓存的条目数，尚未加载时为0
+    private Integer size;
+    // 每次增删改后递增
+    private Long version;
+    private Long hits;
+    private Long misses;
+}
@@ -16,6 +16,8 @@ public class DashboardStatsDTO {
     private Long totalExpenses;
     private Long totalTravelPlans;
     private Long totalStudyCheckIns;
+    private Long totalTodos;
+    private Long totalDiaries;
     private Long totalCategories;
     private Long totalTags;
 }
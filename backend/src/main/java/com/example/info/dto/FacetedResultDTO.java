@@ -0,0 +1,19 @@
+package com.example.info.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 带分面统计的列表查询结果
+ * facets为 属性 -> 取值 -> 记录数（如 category -> {"3": 12}），索引重建期间为null
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedResultDTO<T> {
+    private T results;
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,22 @@
+package com.example.info.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导入过程中输出的一行事件
+ * event为progress（每写入一批）、error（某一行导入失败）或done（导入结束）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEventDTO {
+    private String event;
+    private Long line;
+    private long imported;
+    private long failed;
+    private String message;
+}
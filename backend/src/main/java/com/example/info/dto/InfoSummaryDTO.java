@@ -0,0 +1,41 @@
+package com.example.info.dto;
+
+import com.example.info.entity.Category;
+import com.example.info.entity.Tag;
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列表页使用的摘要
+ * 不包含@Lob大字段，正文只返回服务端截取的纯文本摘要；完整内容通过详情接口获取。
+ * 分类和标签从进程内缓存按ID取得，保持与实体相同的输出格式。
+ * 各类型特有的普通字段（状态、优先级、链接等）平铺输出在attributes中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InfoSummaryDTO {
+    private Long id;
+    private String title;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createdTime;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date updatedTime;
+    private Category category;
+    private List<Tag> tags;
+    private String excerpt;
+    private Map<String, Object> attributes = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.info.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 统一搜索的响应
+ * 若部分类型在截止时间内没有返回，partial为true，并在timedOutTypes中列出这些类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponseDTO {
+    private List<SearchResultDTO> results;
+    private boolean partial;
+    private List<String> timedOutTypes;
+}
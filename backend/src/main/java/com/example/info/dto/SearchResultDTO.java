@@ -0,0 +1,25 @@
+package com.example.info.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 统一搜索的一条结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    // 实体类型，如article、todo、diary
+    private String type;
+    private Long id;
+    private String title;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createdTime;
+    // 相关度（0~1），全文索引未就绪时为1
+    private double score;
+}
@@ -0,0 +1,24 @@
+package com.example.info.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 快照文件信息，以及备份、校验或恢复的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotInfoDTO {
+    private String name;
+    private long sizeBytes;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createdTime;
+    private int tables;
+    private long rows;
+    private long elapsedMillis;
+}
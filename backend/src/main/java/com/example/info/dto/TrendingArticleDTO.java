@@ -0,0 +1,17 @@
+package com.example.info.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 热门文章，views为时间窗口内的估计浏览次数（可能略高于真实值）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingArticleDTO {
+    private Long id;
+    private String title;
+    private long views;
+}
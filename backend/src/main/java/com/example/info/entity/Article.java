@@ -3,6 +3,9 @@ package com.example.info.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.ArrayList;
@@ -14,6 +17,9 @@ import java.util.List;
  */
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "articles")
 @Data
 @EqualsAndHashCode(callSuper = false)
@@ -44,8 +50,10 @@ public class Article extends Info {
     /**
      * 在数据库的articles表中，生成一个名为views的列
      * 数据库中可空，记录文章被查看的次数
+     * 只由浏览计数器以 views = views + ? 的方式累加，实体更新时不写入该列，避免覆盖尚未读到的增量
      */
 
+    @Column(updatable = false)
     private Long views;
 
     /**
@@ -83,6 +91,7 @@ public class Article extends Info {
      * 一个文章可以有多个标签，一个标签可以关联多个文章，通过中间表article_tag维护关系
      */
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany // 多对多关联
     @JoinTable(
             name = "article_tag",// 中间表名称
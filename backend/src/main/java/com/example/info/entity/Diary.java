@@ -3,6 +3,9 @@ package com.example.info.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +15,9 @@ import java.util.List;
  * 对应数据库中的diaries表，用于存储日记相关信息
  */
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "diaries")
 @Data
 @EqualsAndHashCode(callSuper = false)
@@ -21,6 +27,7 @@ public class Diary extends Info {
      * 日记内容
      */
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(nullable = false)
     private String content;
 
@@ -59,6 +66,7 @@ public class Diary extends Info {
     /**
      * 关联的标签列表（多对多关系）
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "diary_tag",
@@ -1,6 +1,10 @@
 package com.example.info.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.example.info.stats.EntityChangeListener;
+import jakarta.persistence.Basic;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -16,15 +20,17 @@ import java.util.Date;
 
 @MappedSuperclass
 @Data
+@EntityListeners(EntityChangeListener.class)
 public abstract class Info {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     private String title;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     private String content;
 
     @Temporal(TemporalType.TIMESTAMP)
@@ -3,16 +3,23 @@ package com.example.info.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "memos")
 @Data
 @EqualsAndHashCode(callSuper = false)
 public class Memo extends Info {
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(nullable = false)
     private String content;
 
@@ -20,6 +27,7 @@ public class Memo extends Info {
     @JoinColumn(name = "category_id")
     private Category category;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "memo_tag",
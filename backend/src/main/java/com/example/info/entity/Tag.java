@@ -1,22 +1,30 @@
 package com.example.info.entity;
 
+import com.example.info.stats.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tags")
 @Data
+@EntityListeners(EntityChangeListener.class)
 public class Tag {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(nullable = false, length = 50)
     private String name;
 
+    @JsonIgnore
     @ManyToMany(mappedBy = "tags")
     private List<Article> articles = new ArrayList<>();
 }
@@ -3,6 +3,9 @@ package com.example.info.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,6 +16,9 @@ import java.util.List;
  * 对应数据库中的todos表，用于存储待办事项相关信息
  */
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "todos")
 @Data
 @EqualsAndHashCode(callSuper = false)
@@ -22,6 +28,7 @@ public class Todo extends Info {
      * 待办事项内容
      */
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(nullable = false)
     private String content;
 
@@ -57,6 +64,7 @@ public class Todo extends Info {
     /**
      * 关联的标签列表（多对多关系）
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "todo_tag",
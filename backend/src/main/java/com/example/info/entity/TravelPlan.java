@@ -3,16 +3,23 @@ package com.example.info.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "travel_plans")
 @Data
 @EqualsAndHashCode(callSuper = false)
 public class TravelPlan extends Info {
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     private String studyContent;
 
     @Column
@@ -28,6 +35,7 @@ public class TravelPlan extends Info {
     @JoinColumn(name = "category_id")
     private Category category;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "travel_plan_tag",
@@ -1,10 +1,20 @@
 package com.example.info.repository;
 
 import com.example.info.entity.Article;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * 文章数据访问层接口
  * 用于数据库中Article实体的CRUD操作及复杂查询
@@ -14,4 +24,25 @@ public interface ArticleRepository extends
         JpaRepository<Article, Long>,  // 继承JpaRepository，获得基本CRUD操作能力
         // 泛型参数：<实体类, 主键类型>
         JpaSpecificationExecutor<Article> { // 继承JpaSpecificationExecutor，支持动态条件查询
-}
\ No newline at end of file
+
+    /**
+     * 列表页的条件分页查询，结果和总数进入Hibernate查询缓存，表有写入时自动失效
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Article> findAll(Specification<Article> spec, Pageable pageable);
+
+    /**
+     * 全部记录，输出时需要完整正文，@Lob字段通过加载图随行读取，不再逐行延迟加载
+     */
+    @Override
+    @EntityGraph(attributePaths = "content", type = EntityGraph.EntityGraphType.LOAD)
+    List<Article> findAll();
+
+    /**
+     * 游标分页查询，同样随行读取@Lob字段
+     */
+    @Override
+    @EntityGraph(attributePaths = "content", type = EntityGraph.EntityGraphType.LOAD)
+    <S extends Article, R> R findBy(Specification<Article> spec, Function<? super SpecificationFluentQuery<S>, R> queryFunction);
+}
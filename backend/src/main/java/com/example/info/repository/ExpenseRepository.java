@@ -1,10 +1,40 @@
 package com.example.info.repository;
 
 import com.example.info.entity.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.function.Function;
+
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
+    /**
+     * 列表页的条件分页查询，结果和总数进入Hibernate查询缓存，表有写入时自动失效
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Expense> findAll(Specification<Expense> spec, Pageable pageable);
+
+    /**
+     * 全部记录，输出时需要完整正文，@Lob字段通过加载图随行读取，不再逐行延迟加载
+     */
+    @Override
+    @EntityGraph(attributePaths = "content", type = EntityGraph.EntityGraphType.LOAD)
+    List<Expense> findAll();
+
+    /**
+     * 游标分页查询，同样随行读取@Lob字段
+     */
+    @Override
+    @EntityGraph(attributePaths = "content", type = EntityGraph.EntityGraphType.LOAD)
+    <S extends Expense, R> R findBy(Specification<Expense> spec, Function<? super SpecificationFluentQuery<S>, R> queryFunction);
 }
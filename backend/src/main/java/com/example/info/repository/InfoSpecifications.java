@@ -0,0 +1,48 @@
+package com.example.info.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Info各子类通用的查询条件
+ */
+public final class InfoSpecifications {
+
+    private InfoSpecifications() {
+    }
+
+    /**
+     * 标签过滤条件
+     * 使用EXISTS子查询代替直接连接 *_tag 中间表，不会产生重复行，也不影响COUNT结果
+     * @param matchAll true表示必须包含全部标签（AND），false表示包含任意一个（OR）
+     */
+    public static Predicate hasTags(Root<?> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                    Collection<Long> tagIds, boolean matchAll) {
+        if (!matchAll) {
+            return cb.exists(tagSubquery(root, query, cb, tagIds));
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        for (Long tagId : tagIds) {
+            predicates.add(cb.exists(tagSubquery(root, query, cb, List.of(tagId))));
+        }
+        return cb.and(predicates.toArray(new Predicate[0]));
+    }
+
+    private static Subquery<Long> tagSubquery(Root<?> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                              Collection<Long> tagIds) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<?> owner = subquery.from(root.getJavaType());
+        Join<?, ?> tag = owner.join("tags");
+        subquery.select(owner.get("id"))
+                .where(cb.equal(owner.get("id"), root.get("id")), tag.get("id").in(tagIds));
+        return subquery;
+    }
+}
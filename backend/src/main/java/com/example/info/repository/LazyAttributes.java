@@ -0,0 +1,52 @@
+package com.example.info.repository;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FetchType;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 延迟加载的大字段
+ * 实体中的@Lob字段标注了@Basic(fetch = LAZY)，经过字节码增强后只在第一次访问时单独查询；
+ * 需要批量读取正文的地方（索引重建、导出等）通过加载图在同一条SQL中一并读取，避免逐行查询
+ */
+public final class LazyAttributes {
+
+    private static final ClassValue<String[]> NAMES = new ClassValue<>() {
+        @Override
+        protected String[] computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private LazyAttributes() {
+    }
+
+    /**
+     * 包含该类型全部延迟加载字段的加载图，其余字段仍按映射中的抓取方式加载
+     * 通过查询提示SpecHints.HINT_SPEC_LOAD_GRAPH使用
+     */
+    public static <T> EntityGraph<T> loadGraph(EntityManager entityManager, Class<T> type) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(type);
+        graph.addAttributeNodes(NAMES.get(type));
+        return graph;
+    }
+
+    private static String[] resolve(Class<?> type) {
+        // 子类重新声明的同名字段只算一次
+        Set<String> names = new LinkedHashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                Basic basic = field.getAnnotation(Basic.class);
+                if (basic != null && basic.fetch() == FetchType.LAZY) {
+                    names.add(field.getName());
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.info.search;
+
+import com.example.info.entity.Info;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 过滤条件位图索引
+ * 按实体类型维护 属性 -> 属性值 -> 记录ID位图（如 tag=3、category=5、status=PUBLISHED），
+ * 多标签AND/OR、分类、状态等过滤条件通过位图交并集解析，避免对 *_tag 中间表做连接查询
+ */
+@Slf4j
+@Component
+public class BitmapIndex {
+
+    // 分面统计缓存的最大条目数
+    private static final int FACET_CACHE_SIZE = 512;
+
+    private final Map<Class<?>, TypeBitmaps> types = new ConcurrentHashMap<>();
+
+    // 规范化查询 -> 分面统计结果，条目记录计算时的类型版本号，版本变化后自动失效
+    private final Map<String, CachedFacets> facetCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedFacets> eldest) {
+                    return size() > FACET_CACHE_SIZE;
+                }
+            });
+
+    // 仅由位图条件得到的候选ID超过该数量时，改为使用SQL条件，避免过长的IN列表
+    @Value("${search.bitmap.max-in-list:10000}")
+    private int maxInListSize;
+
+    /**
+     * 新增或替换一条记录的过滤属性
+     */
+    public void index(Class<? extends Info> type, Long id, IndexAttributes attributes) {
+        if (id == null) {
+            return;
+        }
+        TypeBitmaps bitmaps = bitmapsFor(type);
+        bitmaps.put(Math.toIntExact(id), attributes.values());
+        recordWrite(bitmaps, id);
+    }
+
+    /**
+     * 只替换记录的部分过滤属性，其余属性保持不变，用于批量修改后不重新读取实体
+     * @param ids 被修改的记录
+     * @param fields 被修改的属性，attributes中没有取值的属性被清空
+     * @param attributes 这些属性的新值，所有记录相同
+     */
+    public void update(Class<? extends Info> type, Collection<Long> ids, Set<String> fields, IndexAttributes attributes) {
+        TypeBitmaps bitmaps = bitmapsFor(type);
+        for (Long id : ids) {
+            bitmaps.update(Math.toIntExact(id), fields, attributes.values());
+            recordWrite(bitmaps, id);
+        }
+    }
+
+    /**
+     * 删除一条记录的过滤属性
+     */
+    public void remove(Class<? extends Info> type, Long id) {
+        if (id == null) {
+            return;
+        }
+        TypeBitmaps bitmaps = bitmapsFor(type);
+        bitmaps.remove(Math.toIntExact(id));
+        recordWrite(bitmaps, id);
+    }
+
+    /**
+     * 记录重建期间其他请求的写入（每次写入都会更新位图索引），由IndexRebuilder在重建结束前重放
+     */
+    private void recordWrite(TypeBitmaps bitmaps, Long id) {
+        if (!bitmaps.isReady() && !IndexRebuilder.isRebuilding()) {
+            bitmaps.writes.add(id);
+        }
+    }
+
+    /**
+     * 取出并清空重建期间记录的写入
+     */
+    Set<Long> drainWrites(Class<? extends Info> type) {
+        Set<Long> writes = bitmapsFor(type).writes;
+        Set<Long> drained = new HashSet<>(writes);
+        writes.removeAll(drained);
+        return drained;
+    }
+
+    void beginRebuild(Class<? extends Info> type) {
+        TypeBitmaps bitmaps = bitmapsFor(type);
+        bitmaps.ready = false;
+        bitmaps.writes.clear();
+        bitmaps.clear();
+    }
+
+    void finishRebuild(Class<? extends Info> type) {
+        bitmapsFor(type).ready = true;
+    }
+
+    /**
+     * 统计命中记录在各属性上的取值分布
+     * 对命中集合只遍历一次，依次累加每条记录的属性值，不需要为每个取值单独查询
+     * @param type 实体类型
+     * @param cacheKey 规范化后的查询条件，用于缓存
+     * @param hits 计算命中集合（null表示所有记录）
+     * @param fields 需要统计的属性
+     * @return 属性 -> 取值 -> 记录数（按记录数降序）；索引未就绪时返回null
+     */
+    Map<String, Map<String, Long>> facets(Class<? extends Info> type, String cacheKey,
+                                          Supplier<BitSet> hits, String... fields) {
+        TypeBitmaps bitmaps = bitmapsFor(type);
+        if (!bitmaps.isReady()) {
+            return null;
+        }
+        long version = bitmaps.version;
+        CachedFacets cached = facetCache.get(cacheKey);
+        if (cached != null && cached.version == version) {
+            return cached.facets;
+        }
+
+        Map<String, Map<String, Long>> facets;
+        bitmaps.lock.readLock().lock();
+        try {
+            BitSet docs = hits.get();
+            facets = bitmaps.count(docs == null ? bitmaps.all : docs, fields);
+        } finally {
+            bitmaps.lock.readLock().unlock();
+        }
+        facetCache.put(cacheKey, new CachedFacets(version, facets));
+        return facets;
+    }
+
+    int maxInListSize() {
+        return maxInListSize;
+    }
+
+    TypeBitmaps bitmapsFor(Class<?> type) {
+        return types.computeIfAbsent(type, t -> new TypeBitmaps());
+    }
+
+    /**
+     * 单个实体类型的位图集合
+     */
+    static class TypeBitmaps {
+        private final Map<String, Map<String, BitSet>> bitmaps = new HashMap<>();
+        private final Map<Integer, Map<String, Set<String>>> documents = new HashMap<>();
+        private final BitSet all = new BitSet();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // 重建期间被其他请求写入的记录ID
+        private final Set<Long> writes = ConcurrentHashMap.newKeySet();
+        private volatile boolean ready;
+        // 每次写入递增，用于使分面统计缓存失效
+        private volatile long version;
+
+        void put(int docId, Map<String, Set<String>> attributes) {
+            lock.writeLock().lock();
+            try {
+                removeInternal(docId);
+                putInternal(docId, attributes);
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 替换已索引记录的部分属性；记录不在索引中时忽略（重建期间由重放写入补上）
+         */
+        void update(int docId, Set<String> fields, Map<String, Set<String>> changed) {
+            lock.writeLock().lock();
+            try {
+                Map<String, Set<String>> current = documents.get(docId);
+                if (current == null) {
+                    return;
+                }
+                Map<String, Set<String>> attributes = new LinkedHashMap<>(current);
+                for (String field : fields) {
+                    attributes.remove(field);
+                    if (changed.containsKey(field)) {
+                        attributes.put(field, changed.get(field));
+                    }
+                }
+                removeInternal(docId);
+                putInternal(docId, attributes);
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void putInternal(int docId, Map<String, Set<String>> attributes) {
+            attributes.forEach((field, values) -> {
+                Map<String, BitSet> byValue = bitmaps.computeIfAbsent(field, f -> new HashMap<>());
+                values.forEach(value -> byValue.computeIfAbsent(value, v -> new BitSet()).set(docId));
+            });
+            documents.put(docId, attributes);
+            all.set(docId);
+        }
+
+        void remove(int docId) {
+            lock.writeLock().lock();
+            try {
+                removeInternal(docId);
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeInternal(int docId) {
+            Map<String, Set<String>> attributes = documents.remove(docId);
+            all.clear(docId);
+            if (attributes == null) {
+                return;
+            }
+            attributes.forEach((field, values) -> {
+                Map<String, BitSet> byValue = bitmaps.get(field);
+                for (String value : values) {
+                    BitSet bits = byValue.get(value);
+                    bits.clear(docId);
+                    if (bits.isEmpty()) {
+                        byValue.remove(value);
+                    }
+                }
+            });
+        }
+
+        void clear() {
+            lock.writeLock().lock();
+            try {
+                bitmaps.clear();
+                documents.clear();
+                all.clear();
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean isReady() {
+            return ready;
+        }
+
+        ReadWriteLock lock() {
+            return lock;
+        }
+
+        /**
+         * 某个属性值的位图（调用方需持有读锁），不存在时返回空位图
+         */
+        BitSet bitmap(String field, String value) {
+            Map<String, BitSet> byValue = bitmaps.get(field);
+            BitSet bits = byValue == null ? null : byValue.get(value);
+            return bits == null ? new BitSet() : bits;
+        }
+
+        /**
+         * 某个属性的全部取值位图（调用方需持有读锁）
+         */
+        Map<String, BitSet> bitmaps(String field) {
+            Map<String, BitSet> byValue = bitmaps.get(field);
+            return byValue == null ? Map.of() : byValue;
+        }
+
+        BitSet all() {
+            return all;
+        }
+
+        /**
+         * 一次遍历命中集合，统计各属性取值的记录数（调用方需持有读锁）
+         */
+        Map<String, Map<String, Long>> count(BitSet docs, String... fields) {
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            for (String field : fields) {
+                counts.put(field, new HashMap<>());
+            }
+            docs.stream().forEach(docId -> {
+                Map<String, Set<String>> attributes = documents.get(docId);
+                if (attributes == null) {
+                    return;
+                }
+                for (String field : fields) {
+                    Set<String> values = attributes.get(field);
+                    if (values != null) {
+                        Map<String, Long> fieldCounts = counts.get(field);
+                        values.forEach(value -> fieldCounts.merge(value, 1L, Long::sum));
+                    }
+                }
+            });
+
+            Map<String, Map<String, Long>> sorted = new LinkedHashMap<>();
+            counts.forEach((field, fieldCounts) -> {
+                Map<String, Long> byCount = new LinkedHashMap<>();
+                fieldCounts.entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                        .forEach(e -> byCount.put(e.getKey(), e.getValue()));
+                sorted.put(field, byCount);
+            });
+            return sorted;
+        }
+    }
+
+    private static class CachedFacets {
+        private final long version;
+        private final Map<String, Map<String, Long>> facets;
+
+        CachedFacets(long version, Map<String, Map<String, Long>> facets) {
+            this.version = version;
+            this.facets = facets;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.info.search;
+
+import com.example.info.entity.Category;
+import com.example.info.entity.Tag;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一条记录在位图索引中的可过滤属性，如分类、标签、状态枚举
+ * 属性值统一按字符串保存，与请求参数直接比较
+ */
+public class IndexAttributes {
+
+    public static final String CATEGORY = "category";
+    public static final String TAG = "tag";
+
+    private final Map<String, Set<String>> values = new LinkedHashMap<>();
+
+    private IndexAttributes() {
+    }
+
+    public static IndexAttributes create() {
+        return new IndexAttributes();
+    }
+
+    /**
+     * 添加单值属性，值为null时忽略
+     */
+    public IndexAttributes with(String field, Object value) {
+        if (value != null) {
+            values.computeIfAbsent(field, f -> new LinkedHashSet<>()).add(normalize(value));
+        }
+        return this;
+    }
+
+    /**
+     * 添加多值属性
+     */
+    public IndexAttributes withAll(String field, Collection<?> fieldValues) {
+        if (fieldValues != null) {
+            fieldValues.forEach(value -> with(field, value));
+        }
+        return this;
+    }
+
+    public IndexAttributes category(Category category) {
+        return with(CATEGORY, category == null ? null : category.getId());
+    }
+
+    public IndexAttributes tags(Collection<Tag> tags) {
+        if (tags != null) {
+            tags.forEach(tag -> with(TAG, tag == null ? null : tag.getId()));
+        }
+        return this;
+    }
+
+    Map<String, Set<String>> values() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    static String normalize(Object value) {
+        return value instanceof Enum<?> e ? e.name() : String.valueOf(value);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.info.search;
+
+import com.example.info.entity.Info;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于进程内索引的查询条件解析
+ * 先用全文索引解析搜索文本，再用位图索引解析分类、标签、状态等过滤条件，
+ * 得到候选ID集合后，数据库只需按ID取行。
+ * 某个索引尚未就绪时，对应部分标记为未解析，调用方应改用SQL条件
+ */
+public class IndexQuery {
+
+    private final Class<? extends Info> type;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+
+    private String searchText;
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private Set<Long> ids;
+    private Set<Long> textIds;
+    // 全文检索结果与过滤条件的交集，保持相似度顺序；不受IN列表长度限制
+    private Set<Long> rankedIds;
+    private BitSet filterBits;
+    private boolean textResolved = true;
+    private boolean filtersResolved = true;
+
+    private IndexQuery(Class<? extends Info> type, SearchIndex searchIndex, BitmapIndex bitmapIndex) {
+        this.type = type;
+        this.searchIndex = searchIndex;
+        this.bitmapIndex = bitmapIndex;
+    }
+
+    public static IndexQuery of(Class<? extends Info> type, SearchIndex searchIndex, BitmapIndex bitmapIndex) {
+        return new IndexQuery(type, searchIndex, bitmapIndex);
+    }
+
+    public IndexQuery text(String searchText) {
+        this.searchText = searchText;
+        return this;
+    }
+
+    /**
+     * 属性等于指定值，值为null或空字符串时不过滤
+     */
+    public IndexQuery eq(String field, Object value) {
+        if (value != null && !"".equals(value)) {
+            conditions.add(new Condition(field, List.of(IndexAttributes.normalize(value)), true));
+        }
+        return this;
+    }
+
+    /**
+     * 多值属性过滤，matchAll为true时要求包含全部值（AND），否则包含任意一个（OR）
+     */
+    public IndexQuery in(String field, Collection<?> values, boolean matchAll) {
+        if (values != null && !values.isEmpty()) {
+            conditions.add(new Condition(field, values.stream().map(IndexAttributes::normalize).toList(), matchAll));
+        }
+        return this;
+    }
+
+    public IndexQuery resolve() {
+        if (hasText()) {
+            textIds = searchIndex.search(type, searchText);
+            textResolved = textIds != null;
+        }
+
+        if (!conditions.isEmpty()) {
+            BitmapIndex.TypeBitmaps bitmaps = bitmapIndex.bitmapsFor(type);
+            if (bitmaps.isReady()) {
+                filterBits = evaluate(bitmaps);
+            } else {
+                filtersResolved = false;
+            }
+        }
+
+        int maxInListSize = bitmapIndex.maxInListSize();
+        if (textIds != null) {
+            rankedIds = filterBits == null ? textIds : retain(textIds, filterBits);
+            if (rankedIds.size() <= maxInListSize) {
+                ids = rankedIds;
+            } else {
+                // 命中过多（如很短的前缀）时IN列表反而更慢，搜索文本改用SQL条件；
+                // 按相关度排序时仍通过rankedIds()对排好序的命中分页，每页只按ID取一页
+                textResolved = false;
+            }
+        }
+        if (ids == null && filterBits != null) {
+            if (filterBits.cardinality() > maxInListSize) {
+                // 候选集过大时IN列表反而更慢，交给SQL条件处理
+                filtersResolved = false;
+            } else {
+                ids = new LinkedHashSet<>();
+                filterBits.stream().forEach(docId -> ids.add((long) docId));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 统计当前查询命中记录在各属性上的取值分布（分面统计）
+     * 结果按规范化的查询条件缓存，该类型有写入后自动失效
+     * @param fields 需要统计的属性，如 category、tag、status
+     * @return 属性 -> 取值 -> 记录数；索引尚未就绪时返回null
+     */
+    public Map<String, Map<String, Long>> facets(String... fields) {
+        if ((hasText() && textIds == null) || !bitmapIndex.bitmapsFor(type).isReady()) {
+            return null;
+        }
+        return bitmapIndex.facets(type, cacheKey(fields), this::hits, fields);
+    }
+
+    /**
+     * 命中集合：全文检索结果与位图过滤结果的交集，null表示全部记录
+     */
+    private BitSet hits() {
+        BitSet hits = filterBits;
+        if (textIds != null) {
+            BitSet textBits = new BitSet();
+            textIds.forEach(id -> textBits.set(Math.toIntExact(id)));
+            if (hits == null) {
+                hits = textBits;
+            } else {
+                hits = (BitSet) hits.clone();
+                hits.and(textBits);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 规范化的查询条件：搜索文本去空白并转小写，条件按属性排序、取值排序
+     */
+    private String cacheKey(String... fields) {
+        StringBuilder key = new StringBuilder(type.getName()).append('|');
+        if (hasText()) {
+            key.append(searchText.trim().toLowerCase(Locale.ROOT));
+        }
+        conditions.stream()
+                .sorted(Comparator.comparing((Condition c) -> c.field))
+                .forEach(c -> key.append('|').append(c.field).append(c.matchAll ? '&' : '/')
+                        .append(c.values.stream().sorted().toList()));
+        key.append('|').append(String.join(",", fields));
+        return key.toString();
+    }
+
+    private BitSet evaluate(BitmapIndex.TypeBitmaps bitmaps) {
+        bitmaps.lock().readLock().lock();
+        try {
+            BitSet result = (BitSet) bitmaps.all().clone();
+            for (Condition condition : conditions) {
+                BitSet matched = null;
+                for (String value : condition.values) {
+                    BitSet bits = bitmaps.bitmap(condition.field, value);
+                    if (matched == null) {
+                        matched = (BitSet) bits.clone();
+                    } else if (condition.matchAll) {
+                        matched.and(bits);
+                    } else {
+                        matched.or(bits);
+                    }
+                }
+                result.and(matched);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            bitmaps.lock().readLock().unlock();
+        }
+    }
+
+    private static Set<Long> retain(Set<Long> ids, BitSet bits) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (bits.get(Math.toIntExact(id))) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private boolean hasText() {
+        return searchText != null && !searchText.isEmpty();
+    }
+
+    /**
+     * 索引已确定没有任何匹配记录
+     */
+    public boolean isEmptyResult() {
+        return ids != null && ids.isEmpty();
+    }
+
+    /**
+     * 候选ID集合；为null表示不通过ID过滤
+     */
+    public Set<Long> ids() {
+        return ids;
+    }
+
+    /**
+     * 按相关度降序排列的候选ID（全文检索结果与过滤条件的交集，保持相似度顺序）
+     * 只有搜索文本由全文索引解析、过滤条件也全部由位图索引解析时才能确定，否则返回null
+     */
+    public List<Long> rankedIds() {
+        if (rankedIds == null || (!conditions.isEmpty() && filterBits == null)) {
+            return null;
+        }
+        return new ArrayList<>(rankedIds);
+    }
+
+    /**
+     * 搜索文本是否已由全文索引解析并体现在ids()中（没有搜索文本时也为true）
+     * 命中数超过IN列表上限时为false，调用方改用SQL条件匹配搜索文本
+     */
+    public boolean textResolved() {
+        return textResolved;
+    }
+
+    /**
+     * 过滤条件是否已由位图索引解析并体现在ids()中（没有过滤条件时也为true）
+     */
+    public boolean filtersResolved() {
+        return filtersResolved;
+    }
+
+    private static class Condition {
+        private final String field;
+        private final List<String> values;
+        private final boolean matchAll;
+
+        Condition(String field, List<String> values, boolean matchAll) {
+            this.field = field;
+            this.values = values;
+            this.matchAll = matchAll;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.info.search;
+
+import com.example.info.entity.Info;
+import com.example.info.repository.LazyAttributes;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 进程内索引的全量重建
+ * 按ID分批读取某一类型的全部记录，依次交给该类型Service的索引方法。
+ * 每批在各自的短事务中读取，读完即清空持久化上下文，内存占用与表大小无关；
+ * 重建期间其他请求提交的写入照常更新索引并被记录下来，全部批次读完后重新读取这些记录，
+ * 避免它们被先前批次读到的旧数据覆盖，或已删除的记录被重新加入索引
+ */
+@Slf4j
+@Component
+public class IndexRebuilder {
+
+    // 每批加载的记录数
+    private static final int BATCH_SIZE = 500;
+
+    // 重放写入的最大轮数，超过后不再等待写入停止
+    private static final int MAX_REPLAY_ROUNDS = 10;
+
+    // 当前线程正在执行重建，此时的索引写入不属于需要重放的实时写入
+    private static final ThreadLocal<Boolean> REBUILDING = ThreadLocal.withInitial(() -> false);
+
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public IndexRebuilder(SearchIndex searchIndex, BitmapIndex bitmapIndex, PlatformTransactionManager transactionManager) {
+        this.searchIndex = searchIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 重建某一类型的全文索引和位图索引
+     * 按ID向前分批读取，正文等延迟加载的字段通过加载图随行一起读取
+     * @param type 实体类型
+     * @param indexer 单条记录的索引方法
+     */
+    public <T extends Info> void rebuild(Class<T> type, Consumer<T> indexer) {
+        REBUILDING.set(true);
+        try {
+            searchIndex.beginRebuild(type);
+            bitmapIndex.beginRebuild(type);
+
+            long after = 0;
+            long count = 0;
+            List<T> batch;
+            do {
+                long from = after;
+                batch = readOnlyTransaction.execute(status -> index(entityManager.createQuery(
+                                "select e from " + type.getSimpleName() + " e where e.id > :after order by e.id", type)
+                        .setParameter("after", from)
+                        .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, LazyAttributes.loadGraph(entityManager, type))
+                        .setMaxResults(BATCH_SIZE)
+                        .getResultList(), indexer));
+                count += batch.size();
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+
+            int replayed = replayWrites(type, indexer);
+
+            searchIndex.finishRebuild(type);
+            bitmapIndex.finishRebuild(type);
+            log.info("索引重建完成: {} ({} 条，重放写入 {} 条)", type.getSimpleName(), count, replayed);
+        } finally {
+            REBUILDING.remove();
+        }
+    }
+
+    /**
+     * 重新读取重建期间被其他请求写入的记录：仍存在的重新索引，已删除的从索引中移除
+     * 重放过程中又有新的写入时继续下一轮，直到没有新的写入
+     * @return 重放的记录数
+     */
+    private <T extends Info> int replayWrites(Class<T> type, Consumer<T> indexer) {
+        int replayed = 0;
+        for (int round = 0; round < MAX_REPLAY_ROUNDS; round++) {
+            Set<Long> ids = bitmapIndex.drainWrites(type);
+            if (ids.isEmpty()) {
+                return replayed;
+            }
+            List<Long> all = new ArrayList<>(ids);
+            for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+                List<Long> chunk = all.subList(from, Math.min(from + BATCH_SIZE, all.size()));
+                List<T> found = readOnlyTransaction.execute(status -> index(entityManager.createQuery(
+                                "select e from " + type.getSimpleName() + " e where e.id in :ids", type)
+                        .setParameter("ids", chunk)
+                        .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, LazyAttributes.loadGraph(entityManager, type))
+                        .getResultList(), indexer));
+                Set<Long> deleted = new HashSet<>(chunk);
+                found.forEach(entity -> deleted.remove(entity.getId()));
+                for (Long id : deleted) {
+                    searchIndex.remove(type, id);
+                    bitmapIndex.remove(type, id);
+                }
+            }
+            replayed += ids.size();
+        }
+        log.warn("索引重建期间写入持续不断，停止重放: {}", type.getSimpleName());
+        return replayed;
+    }
+
+    /**
+     * 在当前事务内索引一批记录，之后清空持久化上下文
+     */
+    private <T extends Info> List<T> index(List<T> batch, Consumer<T> indexer) {
+        batch.forEach(indexer);
+        entityManager.clear();
+        return batch;
+    }
+
+    /**
+     * 当前线程是否正在执行重建
+     */
+    static boolean isRebuilding() {
+        return REBUILDING.get();
+    }
+}
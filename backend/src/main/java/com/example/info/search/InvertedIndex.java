@@ -0,0 +1,149 @@
+package com.example.info.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个实体类型的倒排索引
+ * 词项 -> 文档ID位图（posting list），同时维护文档 -> 词项的正排表用于更新和删除
+ */
+class InvertedIndex {
+
+    // 词项按字典序排列，便于按前缀匹配（兼容原LIKE查询对单词片段的匹配）
+    private final NavigableMap<String, BitSet> postings = new TreeMap<>();
+
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 启动时全量重建完成前为false，此时查询应回退到数据库
+    private volatile boolean ready;
+
+    void put(Long id, Set<String> terms) {
+        int docId = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new BitSet()).set(docId);
+            }
+            documents.put(id, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long id) {
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        int docId = Math.toIntExact(id);
+        for (String term : terms) {
+            BitSet posting = postings.get(term);
+            if (posting != null) {
+                posting.clear(docId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按n-gram重合度查询文档
+     * 文档的相似度 = 命中的查询词项数 / 查询词项总数，低于阈值的文档被过滤
+     * @param terms 查询词项
+     * @param minSimilarity 最低相似度（0~1），词项不超过2个时要求全部命中
+     * @return 按相似度降序（相同时ID降序）排列的命中结果
+     */
+    List<SearchHit> match(Set<String> terms, double minSimilarity) {
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int required = terms.size() <= 2
+                ? terms.size()
+                : Math.max(1, (int) Math.ceil(terms.size() * minSimilarity));
+
+        lock.readLock().lock();
+        try {
+            List<BitSet> termHits = new ArrayList<>(terms.size());
+            int maxDocId = 0;
+            for (String term : terms) {
+                BitSet hits = matchPrefix(term);
+                termHits.add(hits);
+                maxDocId = Math.max(maxDocId, hits.length());
+            }
+
+            List<SearchHit> result = new ArrayList<>();
+            if (required == terms.size()) {
+                // 精确匹配：直接对位图求交集
+                BitSet all = termHits.get(0);
+                for (int i = 1; i < termHits.size() && !all.isEmpty(); i++) {
+                    all.and(termHits.get(i));
+                }
+                all.stream().forEach(docId -> result.add(new SearchHit((long) docId, 1.0)));
+            } else {
+                // 近似匹配：统计每个文档命中的词项数
+                int[] counts = new int[maxDocId];
+                for (BitSet hits : termHits) {
+                    hits.stream().forEach(docId -> counts[docId]++);
+                }
+                for (int docId = 0; docId < counts.length; docId++) {
+                    if (counts[docId] >= required) {
+                        result.add(new SearchHit((long) docId, (double) counts[docId] / terms.size()));
+                    }
+                }
+            }
+            result.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                    .thenComparing(SearchHit::getId, Comparator.reverseOrder()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matchPrefix(String term) {
+        BitSet hits = new BitSet();
+        for (BitSet posting : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            hits.or(posting);
+        }
+        return hits;
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    void setReady(boolean ready) {
+        this.ready = ready;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.info.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 全文索引的一条命中结果
+ */
+@Data
+@AllArgsConstructor
+public class SearchHit {
+    // 实体ID
+    private Long id;
+    // 相似度（0~1，1表示所有查询词项都命中）
+    private double score;
+}
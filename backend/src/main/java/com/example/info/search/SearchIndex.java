@@ -0,0 +1,98 @@
+package com.example.info.search;
+
+import com.example.info.entity.Info;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内全文索引
+ * 按实体类型维护倒排索引，由各Service在创建、更新、删除的事务提交后维护，
+ * fetch*方法先通过索引解析searchText得到ID集合，再到数据库按ID查询
+ */
+@Component
+public class SearchIndex {
+
+    private final Map<Class<?>, InvertedIndex> indexes = new ConcurrentHashMap<>();
+
+    // 近似匹配的最低相似度（命中的查询n-gram占比）
+    @Value("${search.min-similarity:0.6}")
+    private double minSimilarity;
+
+    /**
+     * 新增或替换一条记录的索引
+     * @param type 实体类型
+     * @param id 实体ID
+     * @param fields 需要被检索的文本字段
+     */
+    public void index(Class<? extends Info> type, Long id, String... fields) {
+        if (id == null) {
+            return;
+        }
+        indexFor(type).put(id, TextTokenizer.tokenize(fields));
+    }
+
+    /**
+     * 删除一条记录的索引
+     */
+    public void remove(Class<? extends Info> type, Long id) {
+        if (id == null) {
+            return;
+        }
+        indexFor(type).remove(id);
+    }
+
+    /**
+     * 解析搜索文本，返回匹配的实体ID集合
+     * @param type 实体类型
+     * @param searchText 搜索文本
+     * @return 按相似度排序的ID集合；索引尚未就绪时返回null，调用方应回退到数据库查询
+     */
+    public Set<Long> search(Class<? extends Info> type, String searchText) {
+        List<SearchHit> hits = rank(type, searchText);
+        if (hits == null) {
+            return null;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        hits.forEach(hit -> ids.add(hit.getId()));
+        return ids;
+    }
+
+    /**
+     * 按n-gram相似度对匹配结果排序
+     * 完全命中的结果相似度为1，部分命中（如中文错字、漏字）且不低于阈值的结果也会返回
+     * @param type 实体类型
+     * @param searchText 搜索文本
+     * @return 按相似度降序排列的命中结果；索引尚未就绪或搜索文本无有效词项时返回null
+     */
+    public List<SearchHit> rank(Class<? extends Info> type, String searchText) {
+        InvertedIndex index = indexFor(type);
+        if (!index.isReady()) {
+            return null;
+        }
+        Set<String> terms = TextTokenizer.tokenizeQuery(searchText);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return index.match(terms, minSimilarity);
+    }
+
+    void beginRebuild(Class<? extends Info> type) {
+        InvertedIndex index = indexFor(type);
+        index.setReady(false);
+        index.clear();
+    }
+
+    void finishRebuild(Class<? extends Info> type) {
+        indexFor(type).setReady(true);
+    }
+
+    private InvertedIndex indexFor(Class<?> type) {
+        return indexes.computeIfAbsent(type, t -> new InvertedIndex());
+    }
+}
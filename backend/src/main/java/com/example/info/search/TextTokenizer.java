@@ -0,0 +1,102 @@
+package com.example.info.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 全文索引分词器
+ * 英文/数字按单词切分并转为小写；中日韩连续字符切分为二元组（bigram），
+ * 并补充末尾单字，保证任意单字查询都能通过前缀匹配命中
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 对若干文本字段分词，返回去重后的词项集合
+     * @param texts 待分词的文本（允许为null）
+     * @return 词项集合（保持出现顺序）
+     */
+    public static Set<String> tokenize(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text != null && !text.isEmpty()) {
+                tokenize(text, tokens, true);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 对搜索文本分词
+     * 与索引分词的区别是：长度大于1的中日韩片段不再补充末尾单字，
+     * 避免近似匹配时该单字拉低相似度
+     * @param searchText 搜索文本
+     * @return 查询词项集合
+     */
+    public static Set<String> tokenizeQuery(String searchText) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (searchText != null && !searchText.isEmpty()) {
+            tokenize(searchText, tokens, false);
+        }
+        return tokens;
+    }
+
+    private static void tokenize(String text, Set<String> tokens, boolean trailingUnigram) {
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjkRun = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, tokens, trailingUnigram);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens, trailingUnigram);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens, trailingUnigram);
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * 将一段连续的中日韩字符切分为二元组，例如"中文搜索" -> 中文、文搜、搜索、索
+     */
+    private static void flushCjk(StringBuilder run, Set<String> tokens, boolean trailingUnigram) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] codePoints = run.codePoints().toArray();
+        for (int j = 0; j + 1 < codePoints.length; j++) {
+            tokens.add(new String(codePoints, j, 2));
+        }
+        // 末尾单字不会作为任何二元组的首字，单独保留一个一元词项
+        if (trailingUnigram || codePoints.length == 1) {
+            tokens.add(new String(codePoints, codePoints.length - 1, 1));
+        }
+        run.setLength(0);
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
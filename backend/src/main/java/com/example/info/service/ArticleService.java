@@ -1,20 +1,44 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.SingleFlight;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
+import com.example.info.dto.TrendingArticleDTO;
 import com.example.info.entity.Article;
 import com.example.info.entity.Category;
 import com.example.info.repository.ArticleRepository;
+import com.example.info.repository.InfoSpecifications;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import com.example.info.stats.ModificationWatermarks;
+import com.example.info.stats.TrendingArticles;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
-import org.springframework.beans.BeanUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 文章服务类
@@ -23,10 +47,53 @@ import java.util.stream.Stream;
 @Service // 标识为Spring服务组件，用于业务逻辑处理
 @RequiredArgsConstructor // Lombok注解，自动生成包含所有final字段的构造函数，用于依赖注入
 public class ArticleService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "content");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of("status", "visibility");
 
     // 文章数据访问层接口，通过构造函数注入
     private final ArticleRepository articleRepository;
 
+    // 进程内全文索引，创建/更新/删除的事务提交后维护
+    private final SearchIndex searchIndex;
+
+    // 分类、标签、状态、可见性的位图索引，创建/更新/删除的事务提交后维护
+    private final BitmapIndex bitmapIndex;
+
+    // 启动时全量重建索引
+    private final IndexRebuilder indexRebuilder;
+
+    // 批量写入
+    private final BulkOperations bulkOperations;
+
+    // 全量流式导出
+    private final StreamingExport streamingExport;
+
+    // 按Merge Patch语义修改字段
+    private final MergePatcher mergePatcher;
+
+    // 最近一段时间内的热门文章统计
+    private final TrendingArticles trendingArticles;
+
+    // 在等待方之外单独开启事务执行合并后的查询
+    private final TransactionTemplate transactionTemplate;
+
+    // 列表页摘要查询
+    private final InfoSummaries infoSummaries;
+
+    // 文章的修改水位，作为合并查询的写入代数，写入提交后到达的查询不共享之前开始的计算
+    private final ModificationWatermarks watermarks;
+
+    // 相同ID的并发详情查询合并为一次
+    private final SingleFlight<Long, Article> articleLoads = new SingleFlight<>();
+
+    // 相同条件的并发分页查询合并为一次
+    private final SingleFlight<List<Object>, Page<Article>> articlePageLoads = new SingleFlight<>();
+
+    // 相同条件的并发摘要查询合并为一次
+    private final SingleFlight<List<Object>, Page<InfoSummaryDTO>> summaryPageLoads = new SingleFlight<>();
+
     /**
      * 创建新文章
      * @param article 待创建的文章实体对象
@@ -35,7 +102,21 @@ public class ArticleService {
     @Transactional // 声明事务，确保操作的原子性
     public Article createArticle(Article article) {
         // 调用Repository的save方法保存文章
-        return articleRepository.save(article);
+        Article savedArticle = articleRepository.save(article);
+        // 事务提交后更新索引，回滚时索引保持不变
+        Transactions.afterCommit(() -> index(savedArticle));
+        return savedArticle;
+    }
+
+    /**
+     * 批量创建文章
+     * 在一个事务中按JDBC批次写入，每批flush后清空持久化上下文
+     * @param articles 待创建的文章列表
+     * @return 新文章的ID，顺序与入参一致
+     */
+    @Transactional
+    public List<Long> createArticles(List<Article> articles) {
+        return bulkOperations.insertAll(articles, this::index);
     }
 
     /**
@@ -46,41 +127,96 @@ public class ArticleService {
     public void deleteArticle(Long id) {
         // 调用Repository的deleteById方法删除文章
         articleRepository.deleteById(id);
+        // 事务提交后从索引中移除
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    /**
+     * 按ID批量删除文章
+     * 以集合式SQL删除文章及其在article_tag中间表中的关联行，不逐条加载实体
+     * @param ids 要删除的文章ID列表
+     * @return 实际删除的文章数
+     */
+    @Transactional
+    public int deleteArticles(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Article.class, ids);
+        // 事务提交后从索引中移除
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     /**
-     * 更新文章信息（部分更新，只更新非空字段）
+     * 批量删除满足过滤条件的文章，过滤条件与fetchArticles相同，至少需要一个条件
+     * @return 实际删除的文章数
+     */
+    @Transactional
+    public int deleteArticles(String searchText, String status, Integer categoryId,
+                              String visibility, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, status, categoryId, visibility, tagIds);
+        Specification<Article> spec = buildSpecification(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+        return deleteArticles(bulkOperations.findIds(Article.class, spec));
+    }
+
+    /**
+     * 批量修改满足过滤条件的文章，过滤条件与fetchArticles相同，至少需要一个条件
+     * @param changes 字段名 -> 新值（如 {"status": "PUBLISHED"}），categoryId表示修改所属分类
+     * @return 实际修改的文章数
+     */
+    @Transactional
+    public int updateArticles(String searchText, String status, Integer categoryId, String visibility,
+                              List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, status, categoryId, visibility, tagIds);
+        Specification<Article> spec = buildSpecification(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+        List<Long> ids = bulkOperations.findIds(Article.class, spec);
+        return bulkOperations.updateAll(Article.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    /**
+     * 更新文章信息（部分更新，只更新请求体中出现的字段）
      * @param id 要更新的文章ID
-     * @param updatedArticle 包含更新信息的文章实体（非空字段将被更新）
+     * @param updatedArticle 文章JSON，属性名 -> 新值（出现的字段将被更新）
      * @return 更新后的文章实体
      */
     @Transactional
-    public Article updateArticle(Long id, Article updatedArticle) {
+    public Article updateArticle(Long id, Map<String, Object> updatedArticle) {
         // 先查找到原来的文章，如果不存在则返回null
-        Article existingArticle = fetchArticleById(id);
+        // 不经过fetchArticleById：合并查询返回的实体可能属于其他请求的持久化上下文
+        Article existingArticle = articleRepository.findById(id).orElse(null);
+        if (existingArticle == null) {
+            return null;
+        }
 
-        // 找出updatedArticle中为null的字段名，这些字段不需要更新
-        List<String> nullFieldNames = new ArrayList<>();
-        Stream.of(Article.class.getDeclaredFields()) // 获取Article类的所有声明字段
-                .forEach(field -> {
-                    field.setAccessible(true); // 设置字段可访问（包括私有字段）
-                    // 获取updatedArticle对象中该字段的值
-                    Object value = ReflectionUtils.getField(field, updatedArticle);
-                    if (value == null) {
-                        // 如果字段值为null，记录字段名
-                        nullFieldNames.add(field.getName());
-                    }
-                });
+        // 记录修改前的标题，用于判断是否需要重建全文索引
+        String title = existingArticle.getTitle();
+        // 将updatedArticle中出现的属性复制到existingArticle中，实现部分更新
+        // 字段访问器按类缓存，不再每次请求都反射遍历字段
+        mergePatcher.update(existingArticle, updatedArticle);
 
-        // 将为null的字段名转换为数组，用于后续忽略这些字段
-        String[] ignoreFields = nullFieldNames.toArray(new String[0]);
-
-        // 复制属性：将updatedArticle中非null的属性复制到existingArticle中
-        // 忽略为null的字段，实现部分更新
-        BeanUtils.copyProperties(updatedArticle, existingArticle, ignoreFields);
+        // 保存更新后的文章，事务提交后更新索引
+        Article savedArticle = articleRepository.save(existingArticle);
+        reindex(savedArticle, !Objects.equals(title, savedArticle.getTitle())
+                || updatedArticle.containsKey("content"));
+        return savedArticle;
+    }
 
-        // 保存更新后的文章并返回
-        return articleRepository.save(existingArticle);
+    /**
+     * 按JSON Merge Patch语义修改文章
+     * 只修改补丁中出现的字段，提交时只UPDATE实际变化的列
+     * @param id 要修改的文章ID
+     * @param patch 字段名 -> 新值，值为null表示清空该字段
+     * @return 修改后的文章实体，不存在时返回null
+     */
+    @Transactional
+    public Article patchArticle(Long id, Map<String, Object> patch) {
+        Article existingArticle = articleRepository.findById(id).orElse(null);
+        if (existingArticle == null) {
+            return null;
+        }
+        String title = existingArticle.getTitle();
+        mergePatcher.apply(existingArticle, patch);
+        Article savedArticle = articleRepository.save(existingArticle);
+        reindex(savedArticle, !Objects.equals(title, savedArticle.getTitle()) || patch.containsKey("content"));
+        return savedArticle;
     }
 
     /**
@@ -91,64 +227,246 @@ public class ArticleService {
      * @param categoryId 分类ID
      * @param pageable 分页参数（包含页码、每页条数、排序信息等）
      * @param visibility 可见性状态
-     * @param tagId 标签ID
+     * @param tagIds 标签ID列表
+     * @param matchAllTags true表示必须包含全部标签，false表示包含任意一个
      * @return 符合条件的文章分页对象
      */
-    @Transactional
     public Page<Article> fetchArticles( String searchText, String status, Integer categoryId,
-                                        Pageable pageable, String visibility, Integer tagId) {
+                                        Pageable pageable, String visibility,
+                                        List<Long> tagIds, boolean matchAllTags) {
+
+        // 相同条件的并发查询只执行一次；本方法不开启事务，等待中的请求不占用数据库连接
+        List<Object> key = Arrays.asList(searchText, status, categoryId, pageable, visibility, tagIds, matchAllTags);
+        return articlePageLoads.execute(key, watermarks.version(Article.class), () -> {
+            Pageable effective = pageable;
+            if (RelevancePager.isRequested(pageable.getSort())) {
+                List<Long> rankedIds = rankedIds(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+                if (rankedIds != null) {
+                    // 按相关度取当前页，只读取这一页的文章
+                    return transactionTemplate.execute(txStatus -> {
+                        Page<Article> articlePage = RelevancePager.page(rankedIds, pageable,
+                                ids -> articleRepository.findAll(RelevancePager.idIn(ids)), Article::getId);
+                        articlePage.forEach(this::initializeForSharing);
+                        return articlePage;
+                    });
+                }
+                effective = RelevancePager.fallback(pageable);
+            }
+            Pageable sorted = effective;
+            Specification<Article> spec = buildSpecification(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+            if (spec == null) {
+                // 索引中没有任何匹配，无需访问数据库
+                return Page.empty(sorted);
+            }
+            // 执行带条件的分页查询
+            return transactionTemplate.execute(txStatus -> {
+                Page<Article> articlePage = articleRepository.findAll(spec, sorted);
+                articlePage.forEach(this::initializeForSharing);
+                return articlePage;
+            });
+        });
+    }
+
+    /**
+     * 多条件分页查询文章列表摘要
+     * 过滤条件与fetchArticles相同，只返回标题、分类、标签ID和正文摘要，不读取完整正文
+     * @return 符合条件的文章摘要分页对象
+     */
+    public Page<InfoSummaryDTO> fetchArticleSummaries(String searchText, String status, Integer categoryId,
+                                                      Pageable pageable, String visibility,
+                                                      List<Long> tagIds, boolean matchAllTags) {
+        List<Object> key = Arrays.asList(searchText, status, categoryId, pageable, visibility, tagIds, matchAllTags);
+        return summaryPageLoads.execute(key, watermarks.version(Article.class), () -> {
+            Pageable effective = pageable;
+            if (RelevancePager.isRequested(pageable.getSort())) {
+                List<Long> rankedIds = rankedIds(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+                if (rankedIds != null) {
+                    return transactionTemplate.execute(txStatus -> RelevancePager.page(rankedIds, pageable,
+                            ids -> infoSummaries.fetch(Article.class, RelevancePager.idIn(ids), Pageable.unpaged()).getContent(),
+                            InfoSummaryDTO::getId));
+                }
+                effective = RelevancePager.fallback(pageable);
+            }
+            Pageable sorted = effective;
+            Specification<Article> spec = buildSpecification(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+            if (spec == null) {
+                return Page.empty(sorted);
+            }
+            return transactionTemplate.execute(txStatus -> infoSummaries.fetch(Article.class, spec, sorted));
+        });
+    }
+
+    /**
+     * 多条件游标分页查询文章列表摘要
+     * 过滤条件与fetchArticleSummaries相同，以"排序字段 + id"作为游标定位下一页，不执行COUNT查询
+     * @param sort 排序方式
+     * @param after 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 符合条件的文章摘要游标分页对象
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<InfoSummaryDTO> fetchArticleSummariesAfter(String searchText, String status, Integer categoryId,
+                                                   String visibility, List<Long> tagIds, boolean matchAllTags,
+                                                   Sort sort, String after, int size) {
+        Specification<Article> spec = buildSpecification(searchText, status, categoryId, visibility, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        // 相关度无法作为游标字段，游标分页改为按创建时间排序
+        return infoSummaries.fetchAfter(Article.class, spec, RelevancePager.fallback(sort), after, size);
+    }
+
+    /**
+     * 按相关度降序排列的候选文章ID，过滤条件与buildSpecification相同；索引无法确定相关度时返回null
+     */
+    private List<Long> rankedIds(String searchText, String status, Integer categoryId,
+                                 String visibility, List<Long> tagIds, boolean matchAllTags) {
+        String statusFilter = status != null && !"all".equals(status) ? status : null;
+        String visibilityFilter = visibility != null && !"all".equals(visibility) ? visibility : null;
+        Integer category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, statusFilter, category, visibilityFilter, tagIds, matchAllTags).rankedIds();
+    }
+
+    /**
+     * 构建文章的动态查询条件
+     * 先通过全文索引和位图索引解析出候选文章ID，数据库只需按ID取行；
+     * 索引尚未就绪的部分回退到原来的SQL条件
+     * @return 查询条件；索引已确定没有任何匹配时返回null
+     */
+    private Specification<Article> buildSpecification(String searchText, String status, Integer categoryId,
+                                                      String visibility, List<Long> tagIds, boolean matchAllTags) {
+
+        // "all"和0表示不按该条件过滤
+        String statusFilter = status != null && !"all".equals(status) ? status : null;
+        String visibilityFilter = visibility != null && !"all".equals(visibility) ? visibility : null;
+        Integer category = categoryId != null && categoryId != 0 ? categoryId : null;
+
+        IndexQuery indexQuery = indexQuery(searchText, statusFilter, category, visibilityFilter, tagIds, matchAllTags);
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
 
         // 使用Specification构建动态查询条件
-        Specification<Article> spec = (root, query, cb) -> {
+        return (root, query, cb) -> {
             // 存储查询条件的列表
             List<Predicate> predicates = new ArrayList<>();
 
-            // 如果搜索文本不为空，添加标题或内容包含该文本的条件
-            if (searchText != null && !searchText.isEmpty()) {
+            // 索引解析出的候选文章ID
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            // 全文索引未就绪时，添加标题或内容包含该文本的条件
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate contentLike = cb.like(root.get("content"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, contentLike)); // 标题或内容满足一个即可
             }
 
-            // 如果状态不为空且不是"all"，添加状态等于指定值的条件
-            if (status != null && !"all".equals(status)) {
-                predicates.add(cb.equal(root.get("status"), status));
-            }
+            // 位图索引未就绪（或候选集过大）时，使用SQL条件过滤
+            if (!indexQuery.filtersResolved()) {
+                if (statusFilter != null) {
+                    predicates.add(cb.equal(root.get("status"), statusFilter));
+                }
 
-            // 如果分类ID不等于0，添加分类ID等于指定值的条件
-            if (categoryId != 0 ) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            // 如果可见性不为空且不是"all"，添加可见性等于指定值的条件
-            if (visibility != null && !"all".equals(visibility)) {
-                predicates.add(cb.equal(root.get("visibility"), visibility));
-            }
+                if (visibilityFilter != null) {
+                    predicates.add(cb.equal(root.get("visibility"), visibilityFilter));
+                }
 
-            // 如果标签ID不等于0，添加标签ID等于指定值的条件
-            if(tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                // 标签条件使用EXISTS子查询，避免连接中间表产生重复行
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             // 将所有条件组合为一个且条件
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        // 执行带条件的分页查询
-        Page<Article> articlePage = articleRepository.findAll(spec, pageable);
+    /**
+     * 统计文章查询结果的分面计数
+     * 与fetchArticles使用相同的过滤条件，一次遍历命中集合得到各分类、标签、状态、可见性的文章数
+     * @return 属性 -> 取值 -> 文章数；索引尚未就绪时返回null
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Long>> fetchArticleFacets(String searchText, String status, Integer categoryId,
+                                                             String visibility, List<Long> tagIds, boolean matchAllTags) {
+        String statusFilter = status != null && !"all".equals(status) ? status : null;
+        String visibilityFilter = visibility != null && !"all".equals(visibility) ? visibility : null;
+        Integer category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, statusFilter, category, visibilityFilter, tagIds, matchAllTags)
+                .facets(IndexAttributes.CATEGORY, IndexAttributes.TAG, "status", "visibility");
+    }
 
-        return articlePage;
+    /**
+     * 通过全文索引和位图索引解析文章的查询条件
+     */
+    private IndexQuery indexQuery(String searchText, String status, Integer categoryId,
+                                  String visibility, List<Long> tagIds, boolean matchAllTags) {
+        return IndexQuery.of(Article.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, categoryId)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .eq("status", status)
+                .eq("visibility", visibility)
+                .resolve();
     }
 
     /**
      * 根据ID查询文章
+     * 同一篇文章的并发查询只执行一次，所有等待的请求共享结果；
+     * 本方法不开启事务，等待中的请求不占用数据库连接
      * @param id 文章ID
-     * @return 对应的文章实体，如果不存在则返回null
+     * @return 对应的文章实体（只读，可能被多个请求共享），如果不存在则返回null
      */
-    @Transactional
     public Article fetchArticleById(Long id) {
         // 调用Repository的findById方法查询，不存在则返回null
-        return articleRepository.findById(id).orElse(null);
+        return articleLoads.execute(id, watermarks.version(Article.class), () -> transactionTemplate.execute(status -> {
+            Article article = initializeForSharing(articleRepository.findById(id).orElse(null));
+            if (article != null) {
+                // 正文是延迟加载字段，详情需要完整正文，在事务内读取
+                article.getContent();
+            }
+            return article;
+        }));
+    }
+
+    /**
+     * 加载延迟加载的标签，使实体在创建它的持久化上下文之外也能被其他请求序列化
+     */
+    private Article initializeForSharing(Article article) {
+        if (article != null) {
+            Hibernate.initialize(article.getTags());
+        }
+        return article;
+    }
+
+    /**
+     * 查询时间窗口内的热门文章
+     * 排名和浏览次数来自内存中的统计，数据库只按ID取标题；已删除的文章被跳过
+     * @param window 时间窗口：hour、day或week
+     * @param limit 返回条数
+     * @return 按估计浏览次数降序排列的热门文章
+     */
+    @Transactional(readOnly = true)
+    public List<TrendingArticleDTO> fetchTrendingArticles(String window, int limit) {
+        Map<Long, Long> top = trendingArticles.top(window, limit);
+        Map<Long, Article> articles = new HashMap<>();
+        articleRepository.findAllById(top.keySet()).forEach(article -> articles.put(article.getId(), article));
+
+        List<TrendingArticleDTO> result = new ArrayList<>();
+        top.forEach((id, views) -> {
+            Article article = articles.get(id);
+            if (article != null) {
+                result.add(new TrendingArticleDTO(id, article.getTitle(), views));
+            }
+        });
+        return result;
     }
 
     /**
@@ -160,4 +478,73 @@ public class ArticleService {
         return articleRepository.findAll();
     }
 
+    /**
+     * 以流的方式导出全部文章，分段读取并逐条写入输出流，不把整张表加载到内存
+     * @param out 响应输出流
+     * @param ndjson true时每行一篇文章，false时写成JSON数组
+     */
+    @Transactional(readOnly = true)
+    public void streamAllArticles(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Article.class, out, ndjson);
+    }
+
+    /**
+     * 应用启动完成后，从数据库重建文章的全文索引和位图索引
+     */
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Article.class, this::index);
+    }
+
+    /**
+     * 索引一篇文章：标题和内容进入全文索引，分类、标签、状态、可见性进入位图索引
+     */
+    private void index(Article article) {
+        searchIndex.index(Article.class, article.getId(), text(article));
+        bitmapIndex.index(Article.class, article.getId(), attributes(article));
+    }
+
+    /**
+     * 修改文章后（单篇或批量），在事务提交后更新索引
+     * 标题和正文都没有修改时只更新位图索引，不读取延迟加载的正文；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Article article, boolean textChanged) {
+        Long id = article.getId();
+        String[] text = textChanged ? text(article) : null;
+        IndexAttributes attributes = attributes(article);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Article.class, id, text);
+            }
+            bitmapIndex.index(Article.class, id, attributes);
+        });
+    }
+
+    /**
+     * 进入全文索引的文本字段
+     */
+    private static String[] text(Article article) {
+        return new String[]{article.getTitle(), article.getContent()};
+    }
+
+    /**
+     * 进入位图索引的过滤属性
+     */
+    private static IndexAttributes attributes(Article article) {
+        return IndexAttributes.create()
+                .category(article.getCategory())
+                .tags(article.getTags())
+                .with("status", article.getStatus())
+                .with("visibility", article.getVisibility());
+    }
+
+    /**
+     * 从全部索引中移除一篇文章
+     */
+    private void unindex(Long id) {
+        searchIndex.remove(Article.class, id);
+        bitmapIndex.remove(Article.class, id);
+    }
+
 }
\ No newline at end of file
@@ -1,72 +1,191 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Audio;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.AudioRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class AudioService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "artist");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final AudioRepository audioRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Audio createAudio(Audio audio) {
-        return audioRepository.save(audio);
+        Audio saved = audioRepository.save(audio);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createAudios(List<Audio> audios) {
+        return bulkOperations.insertAll(audios, this::index);
     }
 
     @Transactional
     public void deleteAudio(Long id) {
         audioRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteAudios(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Audio.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public Audio updateAudio(Long id, Audio audio) {
+    public int deleteAudios(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteAudios(bulkOperations.findIds(Audio.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateAudios(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(Audio.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(Audio.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Audio updateAudio(Long id, Map<String, Object> audio) {
         Audio existing = audioRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(audio.getTitle());
-            existing.setFormat(audio.getFormat());
-            existing.setArtist(audio.getArtist());
-            existing.setAlbum(audio.getAlbum());
-            existing.setBitrate(audio.getBitrate());
-            existing.setCategory(audio.getCategory());
-            existing.setTags(audio.getTags());
-            return audioRepository.save(existing);
+            String[] text = text(existing);
+            mergePatcher.update(existing, audio);
+            Audio saved = audioRepository.save(existing);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public Audio patchAudio(Long id, Map<String, Object> patch) {
+        Audio existingAudio = audioRepository.findById(id).orElse(null);
+        if (existingAudio != null) {
+            String[] text = text(existingAudio);
+            mergePatcher.apply(existingAudio, patch);
+            Audio saved = audioRepository.save(existingAudio);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Audio> fetchAudios(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Audio> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return audioRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchAudios相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchAudioSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Audio> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Audio.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchAudios相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<Audio> fetchAudios(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<Audio> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchAudioSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<Audio> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(Audio.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Audio> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(Audio.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate artistLike = cb.like(root.get("artist"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, artistLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return audioRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -78,4 +197,51 @@ public class AudioService {
     public List<Audio> findAllAudios() {
         return audioRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllAudios(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Audio.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Audio.class, this::index);
+    }
+
+    private void index(Audio audio) {
+        searchIndex.index(Audio.class, audio.getId(), text(audio));
+        bitmapIndex.index(Audio.class, audio.getId(), attributes(audio));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 文本字段没有修改时只更新位图索引，不重新分词；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Audio audio, boolean textChanged) {
+        Long id = audio.getId();
+        String[] text = textChanged ? text(audio) : null;
+        IndexAttributes attributes = attributes(audio);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Audio.class, id, text);
+            }
+            bitmapIndex.index(Audio.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Audio audio) {
+        return new String[]{audio.getTitle(), audio.getArtist()};
+    }
+
+    private static IndexAttributes attributes(Audio audio) {
+        return IndexAttributes.create()
+                .category(audio.getCategory())
+                .tags(audio.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Audio.class, id);
+        bitmapIndex.remove(Audio.class, id);
+    }
 }
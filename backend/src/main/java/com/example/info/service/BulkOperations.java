@@ -0,0 +1,377 @@
+package com.example.info.service;
+
+import com.example.info.common.Transactions;
+import com.example.info.entity.Category;
+import com.example.info.entity.Info;
+import com.example.info.exception.BusinessException;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.SearchIndex;
+import com.example.info.stats.ActivityRollups;
+import com.example.info.stats.EntityCounters;
+import com.example.info.stats.ModificationWatermarks;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 各Info类型共用的批量写入操作
+ * 批量插入在调用方的事务中逐条persist，每满一个JDBC批次flush并clear一次持久化上下文，
+ * 使插入语句按批发送，且内存占用不随记录数增长；
+ * 批量删除和批量修改按ID分段执行集合式的DELETE/UPDATE语句，不逐条加载实体；
+ * 集合式语句不经过实体回调，活动统计和索引由这里根据投影查询的列值维护
+ */
+@Service
+public class BulkOperations {
+
+    // 单次请求允许批量创建的最大记录数
+    private static final int MAX_ITEMS = 10000;
+
+    // 每条DELETE/UPDATE语句的IN列表长度
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // 不允许批量修改的字段：主键、时间戳由系统维护，浏览量只由浏览计数器累加
+    private static final Set<String> PROTECTED_FIELDS = Set.of("id", "createdTime", "updatedTime", "views");
+
+    // 实体类型 -> 该类型拥有的多对多中间表（表名, 外键列）
+    private final Map<Class<?>, List<String[]>> joinTables = new ConcurrentHashMap<>();
+
+    private final EntityCounters entityCounters;
+
+    private final ModificationWatermarks watermarks;
+
+    private final ObjectMapper objectMapper;
+
+    private final ActivityRollups activityRollups;
+
+    private final SearchIndex searchIndex;
+
+    private final BitmapIndex bitmapIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // 与hibernate.jdbc.batch_size保持一致，每个批次刚好对应一次flush
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public BulkOperations(EntityCounters entityCounters, ModificationWatermarks watermarks, ObjectMapper objectMapper,
+                          ActivityRollups activityRollups, SearchIndex searchIndex, BitmapIndex bitmapIndex) {
+        this.entityCounters = entityCounters;
+        this.watermarks = watermarks;
+        this.objectMapper = objectMapper;
+        this.activityRollups = activityRollups;
+        this.searchIndex = searchIndex;
+        this.bitmapIndex = bitmapIndex;
+    }
+
+    /**
+     * 批量插入
+     * @param entities 待插入的记录，忽略其中的ID
+     * @param indexer 插入后更新索引的方法
+     * @return 新记录的ID，顺序与入参一致
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> List<Long> insertAll(List<T> entities, Consumer<T> indexer) {
+        if (entities == null || entities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (entities.size() > MAX_ITEMS) {
+            throw new BusinessException("单次最多批量创建" + MAX_ITEMS + "条记录");
+        }
+
+        List<Long> ids = new ArrayList<>(entities.size());
+        List<T> pending = new ArrayList<>(batchSize);
+        for (T entity : entities) {
+            entity.setId(null);
+            entityManager.persist(entity);
+            pending.add(entity);
+            if (pending.size() >= batchSize) {
+                flushBatch(pending, ids, indexer);
+            }
+        }
+        flushBatch(pending, ids, indexer);
+        return ids;
+    }
+
+    private <T extends Info> void flushBatch(List<T> pending, List<Long> ids, Consumer<T> indexer) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        List<T> flushed = new ArrayList<>(pending);
+        for (T entity : flushed) {
+            ids.add(entity.getId());
+        }
+        // 提交后再更新索引，事务回滚时索引中不会留下不存在的记录
+        Transactions.afterCommit(() -> flushed.forEach(indexer));
+        entityManager.clear();
+        pending.clear();
+    }
+
+    /**
+     * 查询满足条件的全部记录ID，只读取主键列
+     * @param spec 查询条件，为null表示没有任何匹配
+     * @return 按ID升序排列的记录ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> List<Long> findIds(Class<T> type, Specification<T> spec) {
+        if (spec == null) {
+            return new ArrayList<>();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        query.select(root.get("id"));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * 按ID批量删除，先删除多对多中间表中的关联行，再删除记录本身
+     * @return 实际删除的记录数
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> int deleteAll(Class<T> type, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+
+        int deleted = 0;
+        List<Date[]> removed = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            // 删除前读取时间戳，提交后从活动统计中撤销这些记录
+            for (Tuple row : select(type, chunk, "createdTime", "updatedTime")) {
+                removed.add(new Date[]{row.get(1, Date.class), row.get(2, Date.class)});
+            }
+            for (String[] joinTable : joinTables(type)) {
+                // 声明影响的表，二级缓存只清除该中间表对应的标签集合区域，而不是全部区域
+                entityManager.createNativeQuery("DELETE FROM " + joinTable[0] + " WHERE " + joinTable[1] + " IN (:ids)")
+                        .unwrap(NativeQuery.class)
+                        .addSynchronizedQuerySpace(joinTable[0])
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+            }
+            deleted += entityManager.createQuery("DELETE FROM " + type.getSimpleName() + " e WHERE e.id IN :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        entityManager.clear();
+
+        int total = deleted;
+        Transactions.afterCommit(() -> {
+            entityCounters.add(type, -total);
+            removed.forEach(times -> activityRollups.recordRemoved(type, times[0], times[1]));
+            watermarks.touch(type);
+        });
+        return deleted;
+    }
+
+    /**
+     * 按ID批量修改字段
+     * 每段ID执行一条UPDATE语句，不加载实体：修改前投影读取旧的修改时间用于活动统计，
+     * 只有修改了全文索引字段时才投影读取这些字段重建全文索引；
+     * 位图索引只替换被修改的属性，所有记录的新值相同，不需要读取标签
+     * @param changes 字段名 -> 新值，只支持基本类型字段；categoryId表示修改所属分类
+     * @param textFields 进入全文索引的字段，顺序与单条记录建索引时一致
+     * @param attributeFields 进入位图索引的基本类型字段（分类除外）
+     * @return 实际修改的记录数
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> int updateAll(Class<T> type, List<Long> ids, Map<String, Object> changes,
+                                          List<String> textFields, Set<String> attributeFields) {
+        Map<String, Object> assignments = resolveAssignments(type, changes);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Date now = new Date();
+        int updated = 0;
+        List<Date> previousUpdatedTimes = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (Tuple row : select(type, chunk, "updatedTime")) {
+                previousUpdatedTimes.add(row.get(1, Date.class));
+            }
+            CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+            Root<T> root = update.from(type);
+            assignments.forEach(update::set);
+            // 批量UPDATE不经过实体回调，由这里维护修改时间
+            update.set("updatedTime", now);
+            update.where(root.get("id").in(chunk));
+            updated += entityManager.createQuery(update).executeUpdate();
+        }
+        entityManager.clear();
+
+        Map<Long, String[]> text = new HashMap<>();
+        if (!Collections.disjoint(changes.keySet(), textFields)) {
+            String[] fields = textFields.toArray(new String[0]);
+            for (List<Long> chunk : chunks(ids)) {
+                for (Tuple row : select(type, chunk, fields)) {
+                    String[] values = new String[fields.length];
+                    for (int i = 0; i < fields.length; i++) {
+                        values[i] = row.get(i + 1, String.class);
+                    }
+                    text.put(row.get(0, Long.class), values);
+                }
+            }
+        }
+
+        Set<String> changedAttributes = new HashSet<>();
+        IndexAttributes attributes = IndexAttributes.create();
+        assignments.forEach((field, value) -> {
+            if ("category".equals(field)) {
+                changedAttributes.add(IndexAttributes.CATEGORY);
+                attributes.category((Category) value);
+            } else if (attributeFields.contains(field)) {
+                changedAttributes.add(field);
+                attributes.with(field, value);
+            }
+        });
+
+        Transactions.afterCommit(() -> {
+            previousUpdatedTimes.forEach(previous -> activityRollups.recordUpdated(type, previous, now));
+            text.forEach((id, values) -> searchIndex.index(type, id, values));
+            if (!changedAttributes.isEmpty()) {
+                bitmapIndex.update(type, ids, changedAttributes, attributes);
+            }
+            watermarks.touch(type);
+        });
+        return updated;
+    }
+
+    /**
+     * 投影查询一段记录的若干列，第一列为ID，其后依次为指定字段
+     */
+    private <T extends Info> List<Tuple> select(Class<T> type, List<Long> ids, String... fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        for (String field : fields) {
+            selections.add(root.get(field));
+        }
+        query.multiselect(selections).where(root.get("id").in(ids));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * 要求批量操作至少带一个过滤条件，避免误操作整张表
+     * null、空字符串、"all"、0和空集合视为没有该条件
+     */
+    public void requireFilter(Object... conditions) {
+        for (Object condition : conditions) {
+            boolean present;
+            if (condition instanceof String text) {
+                present = !text.isBlank() && !"all".equals(text);
+            } else if (condition instanceof Number number) {
+                present = number.longValue() != 0;
+            } else if (condition instanceof Collection<?> collection) {
+                present = !collection.isEmpty();
+            } else {
+                present = condition != null;
+            }
+            if (present) {
+                return;
+            }
+        }
+        throw new BusinessException("批量操作至少需要一个过滤条件");
+    }
+
+    /**
+     * 校验要修改的字段并把值转换为字段类型
+     */
+    private Map<String, Object> resolveAssignments(Class<?> type, Map<String, Object> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new BusinessException("没有需要修改的字段");
+        }
+        EntityType<?> entityType = entityManager.getMetamodel().entity(type);
+        Map<String, Object> assignments = new LinkedHashMap<>();
+        changes.forEach((field, value) -> {
+            if ("categoryId".equals(field)) {
+                assignments.put("category", value == null ? null
+                        : entityManager.getReference(Category.class, objectMapper.convertValue(value, Long.class)));
+                return;
+            }
+            Attribute<?, ?> attribute;
+            try {
+                attribute = entityType.getAttribute(field);
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("不支持批量修改的字段: " + field);
+            }
+            if (!(attribute instanceof SingularAttribute<?, ?>)
+                    || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                    || PROTECTED_FIELDS.contains(field)) {
+                throw new BusinessException("不支持批量修改的字段: " + field);
+            }
+            try {
+                assignments.put(field, value == null ? null : objectMapper.convertValue(value, attribute.getJavaType()));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("字段" + field + "的值无效: " + value);
+            }
+        });
+        return assignments;
+    }
+
+    /**
+     * 找出实体拥有（非mappedBy一侧）的多对多中间表
+     */
+    private List<String[]> joinTables(Class<?> type) {
+        return joinTables.computeIfAbsent(type, t -> {
+            SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class);
+            List<String[]> tables = new ArrayList<>();
+            for (PluralAttribute<?, ?, ?> attribute : entityManager.getMetamodel().entity(t).getPluralAttributes()) {
+                if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.MANY_TO_MANY) {
+                    continue;
+                }
+                String role = attribute.getDeclaringType().getJavaType().getName() + "." + attribute.getName();
+                CollectionPersister persister = sessionFactory.getMappingMetamodel().getCollectionDescriptor(role);
+                if (persister instanceof AbstractCollectionPersister collectionPersister && !collectionPersister.isInverse()) {
+                    tables.add(new String[]{collectionPersister.getTableName(), collectionPersister.getKeyColumnNames()[0]});
+                }
+            }
+            return tables;
+        });
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(all.subList(from, Math.min(from + ID_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
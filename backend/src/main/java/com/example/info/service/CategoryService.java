@@ -1,26 +1,69 @@
 package com.example.info.service;
 
+import com.example.info.common.Transactions;
 import com.example.info.entity.Category;
+import com.example.info.entity.Info;
 import com.example.info.repository.CategoryRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.SearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.PluralAttribute;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional
     public Category createCategory(Category category) {
         return categoryRepository.save(category);
     }
 
+    /**
+     * 删除分类，其下的记录随之级联删除（CascadeType.ALL）
+     * 级联删除不经过各类型服务，删除前找出这些记录的ID，事务提交后从索引中移除
+     */
     @Transactional
     public void deleteCategory(Long id) {
+        Map<Class<? extends Info>, List<Long>> cascaded = cascadedIds(id);
         categoryRepository.deleteById(id);
+        Transactions.afterCommit(() -> cascaded.forEach((type, ids) -> ids.forEach(itemId -> {
+            searchIndex.remove(type, itemId);
+            bitmapIndex.remove(type, itemId);
+        })));
+    }
+
+    /**
+     * 按类型查询分类下会被级联删除的记录ID，只读取主键列
+     */
+    private Map<Class<? extends Info>, List<Long>> cascadedIds(Long id) {
+        Map<Class<? extends Info>, List<Long>> cascaded = new LinkedHashMap<>();
+        for (PluralAttribute<? super Category, ?, ?> attribute : entityManager.getMetamodel().entity(Category.class).getPluralAttributes()) {
+            if (!Info.class.isAssignableFrom(attribute.getElementType().getJavaType())) {
+                continue;
+            }
+            Class<? extends Info> type = attribute.getElementType().getJavaType().asSubclass(Info.class);
+            cascaded.put(type, entityManager.createQuery("select e.id from " + type.getSimpleName()
+                            + " e where e.category.id = :id", Long.class)
+                    .setParameter("id", id)
+                    .getResultList());
+        }
+        return cascaded;
     }
 
     @Transactional
@@ -34,13 +77,26 @@ public class CategoryService {
         return null;
     }
 
-    @Transactional(readOnly = true)
     public List<Category> findAllCategories() {
-        return categoryRepository.findAll();
+        return referenceDataCache.categories();
+    }
+
+    /**
+     * 按名称或描述模糊筛选分类（忽略大小写），在缓存中完成，不访问数据库
+     */
+    public List<Category> searchCategories(String searchText) {
+        List<Category> categories = referenceDataCache.categories();
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return categories;
+        }
+        String search = searchText.toLowerCase();
+        return categories.stream()
+                .filter(c -> c.getName().toLowerCase().contains(search) ||
+                        (c.getDescription() != null && c.getDescription().toLowerCase().contains(search)))
+                .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public Category findById(Long id) {
-        return categoryRepository.findById(id).orElse(null);
+        return referenceDataCache.category(id);
     }
 }
@@ -1,17 +1,36 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Diary;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.DiaryRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Diary服务层
@@ -19,64 +38,207 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class DiaryService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "content");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of("mood", "weather");
+
     private final DiaryRepository diaryRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Diary createDiary(Diary diary) {
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createDiaries(List<Diary> diaries) {
+        return bulkOperations.insertAll(diaries, this::index);
     }
 
     @Transactional
     public void deleteDiary(Long id) {
         diaryRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteDiaries(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Diary.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
+    }
+
+    @Transactional
+    public int deleteDiaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds, mood, weather);
+        return deleteDiaries(bulkOperations.findIds(Diary.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags, mood, weather)));
+    }
+
+    @Transactional
+    public int updateDiaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds, mood, weather);
+        List<Long> ids = bulkOperations.findIds(Diary.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags, mood, weather));
+        return bulkOperations.updateAll(Diary.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Diary updateDiary(Long id, Map<String, Object> diary) {
+        Diary existingDiary = diaryRepository.findById(id).orElse(null);
+        if (existingDiary != null) {
+            String title = existingDiary.getTitle();
+            mergePatcher.update(existingDiary, diary);
+            Diary saved = diaryRepository.save(existingDiary);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || diary.containsKey("content"));
+            return saved;
+        }
+        return null;
     }
 
     @Transactional
-    public Diary updateDiary(Long id, Diary diary) {
+    public Diary patchDiary(Long id, Map<String, Object> patch) {
         Diary existingDiary = diaryRepository.findById(id).orElse(null);
         if (existingDiary != null) {
-            existingDiary.setTitle(diary.getTitle());
-            existingDiary.setContent(diary.getContent());
-            existingDiary.setMood(diary.getMood());
-            existingDiary.setWeather(diary.getWeather());
-            existingDiary.setCategory(diary.getCategory());
-            existingDiary.setTags(diary.getTags());
-            return diaryRepository.save(existingDiary);
+            String title = existingDiary.getTitle();
+            mergePatcher.apply(existingDiary, patch);
+            Diary saved = diaryRepository.save(existingDiary);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || patch.containsKey("content"));
+            return saved;
         }
         return null;
     }
 
     @Transactional(readOnly = true)
-    public Page<Diary> fetchDiaries(String searchText, Long categoryId, Long tagId, String mood, String weather, Pageable pageable) {
-        Specification<Diary> spec = (root, query, cb) -> {
+    public Page<Diary> fetchDiaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags, mood, weather);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable, ids -> diaryRepository.findAll(RelevancePager.idIn(ids)), Diary::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Diary> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, mood, weather);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return diaryRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchDiaries相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchDiarySummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags, mood, weather);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable,
+                        ids -> infoSummaries.fetch(Diary.class, RelevancePager.idIn(ids), Pageable.unpaged()).getContent(),
+                        InfoSummaryDTO::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Diary> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, mood, weather);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Diary.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchDiaries相同，不执行COUNT查询，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<InfoSummaryDTO> fetchDiarySummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather, Sort sort, String after, int size) {
+        Specification<Diary> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, mood, weather);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        // 相关度无法作为游标字段，游标分页改为按创建时间排序
+        return infoSummaries.fetchAfter(Diary.class, spec, RelevancePager.fallback(sort), after, size);
+    }
+
+    /**
+     * 按相关度降序排列的候选ID，过滤条件与buildSpecification相同；索引无法确定相关度时返回null
+     */
+    private List<Long> rankedIds(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, category, tagIds, matchAllTags, mood, weather).rankedIds();
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Diary> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = indexQuery(searchText, category, tagIds, matchAllTags, mood, weather);
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate contentLike = cb.like(root.get("content"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, contentLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
-            }
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
 
-            if (mood != null && !mood.isEmpty()) {
-                predicates.add(cb.equal(root.get("mood"), Diary.Mood.valueOf(mood)));
-            }
+                if (mood != null && !mood.isEmpty()) {
+                    predicates.add(cb.equal(root.get("mood"), Diary.Mood.valueOf(mood)));
+                }
 
-            if (weather != null && !weather.isEmpty()) {
-                predicates.add(cb.equal(root.get("weather"), Diary.Weather.valueOf(weather)));
+                if (weather != null && !weather.isEmpty()) {
+                    predicates.add(cb.equal(root.get("weather"), Diary.Weather.valueOf(weather)));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        return diaryRepository.findAll(spec, pageable);
+    /**
+     * 分面统计：与fetchDiaries使用相同的过滤条件，返回各分类、标签、心情、天气的记录数，索引未就绪时返回null
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Long>> fetchDiaryFacets(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, category, tagIds, matchAllTags, mood, weather)
+                .facets(IndexAttributes.CATEGORY, IndexAttributes.TAG, "mood", "weather");
+    }
+
+    private IndexQuery indexQuery(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String mood, String weather) {
+        return IndexQuery.of(Diary.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, categoryId)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .eq("mood", mood)
+                .eq("weather", weather)
+                .resolve();
     }
 
     @Transactional(readOnly = true)
@@ -88,5 +250,53 @@ public class DiaryService {
     public List<Diary> findAllDiaries() {
         return diaryRepository.findAll();
     }
-}
 
+    @Transactional(readOnly = true)
+    public void streamAllDiaries(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Diary.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Diary.class, this::index);
+    }
+
+    private void index(Diary diary) {
+        searchIndex.index(Diary.class, diary.getId(), text(diary));
+        bitmapIndex.index(Diary.class, diary.getId(), attributes(diary));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 标题和正文都没有修改时只更新位图索引，不读取延迟加载的正文；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Diary diary, boolean textChanged) {
+        Long id = diary.getId();
+        String[] text = textChanged ? text(diary) : null;
+        IndexAttributes attributes = attributes(diary);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Diary.class, id, text);
+            }
+            bitmapIndex.index(Diary.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Diary diary) {
+        return new String[]{diary.getTitle(), diary.getContent()};
+    }
+
+    private static IndexAttributes attributes(Diary diary) {
+        return IndexAttributes.create()
+                .category(diary.getCategory())
+                .tags(diary.getTags())
+                .with("mood", diary.getMood())
+                .with("weather", diary.getWeather());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Diary.class, id);
+        bitmapIndex.remove(Diary.class, id);
+    }
+}
@@ -1,73 +1,192 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Expense;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.ExpenseRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "merchant", "expenseType");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final ExpenseRepository expenseRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Expense createExpense(Expense expense) {
-        return expenseRepository.save(expense);
+        Expense saved = expenseRepository.save(expense);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createExpenses(List<Expense> expenses) {
+        return bulkOperations.insertAll(expenses, this::index);
     }
 
     @Transactional
     public void deleteExpense(Long id) {
         expenseRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteExpenses(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Expense.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public Expense updateExpense(Long id, Expense expense) {
+    public int deleteExpenses(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteExpenses(bulkOperations.findIds(Expense.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateExpenses(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(Expense.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(Expense.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Expense updateExpense(Long id, Map<String, Object> expense) {
         Expense existing = expenseRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(expense.getTitle());
-            existing.setAmount(expense.getAmount());
-            existing.setPaymentMethod(expense.getPaymentMethod());
-            existing.setMerchant(expense.getMerchant());
-            existing.setExpenseType(expense.getExpenseType());
-            existing.setCategory(expense.getCategory());
-            existing.setTags(expense.getTags());
-            return expenseRepository.save(existing);
+            String[] text = text(existing);
+            mergePatcher.update(existing, expense);
+            Expense saved = expenseRepository.save(existing);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public Expense patchExpense(Long id, Map<String, Object> patch) {
+        Expense existingExpense = expenseRepository.findById(id).orElse(null);
+        if (existingExpense != null) {
+            String[] text = text(existingExpense);
+            mergePatcher.apply(existingExpense, patch);
+            Expense saved = expenseRepository.save(existingExpense);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Expense> fetchExpenses(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Expense> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return expenseRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchExpenses相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchExpenseSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Expense> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Expense.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchExpenses相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<Expense> fetchExpenses(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<Expense> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchExpenseSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<Expense> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(Expense.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Expense> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(Expense.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate merchantLike = cb.like(root.get("merchant"), "%" + searchText + "%");
                 Predicate expenseTypeLike = cb.like(root.get("expenseType"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, merchantLike, expenseTypeLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return expenseRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -79,4 +198,51 @@ public class ExpenseService {
     public List<Expense> findAllExpenses() {
         return expenseRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllExpenses(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Expense.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Expense.class, this::index);
+    }
+
+    private void index(Expense expense) {
+        searchIndex.index(Expense.class, expense.getId(), text(expense));
+        bitmapIndex.index(Expense.class, expense.getId(), attributes(expense));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 文本字段没有修改时只更新位图索引，不重新分词；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Expense expense, boolean textChanged) {
+        Long id = expense.getId();
+        String[] text = textChanged ? text(expense) : null;
+        IndexAttributes attributes = attributes(expense);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Expense.class, id, text);
+            }
+            bitmapIndex.index(Expense.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Expense expense) {
+        return new String[]{expense.getTitle(), expense.getMerchant(), expense.getExpenseType()};
+    }
+
+    private static IndexAttributes attributes(Expense expense) {
+        return IndexAttributes.create()
+                .category(expense.getCategory())
+                .tags(expense.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Expense.class, id);
+        bitmapIndex.remove(Expense.class, id);
+    }
 }
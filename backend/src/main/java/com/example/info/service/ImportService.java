@@ -0,0 +1,233 @@
+package com.example.info.service;
+
+import com.example.info.dto.ImportEventDTO;
+import com.example.info.entity.*;
+import com.example.info.exception.BusinessException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * NDJSON数据导入
+ * 请求体每行是一条带type字段的Info记录，category和tags可以直接写名称（不存在时自动创建）。
+ * 逐行读取并解析，按类型攒够一批后交给对应Service在一个事务中批量写入；
+ * 只有上一批写完才继续读取请求体，内存占用只与批大小有关，与文件大小无关
+ */
+@Slf4j
+@Service
+public class ImportService {
+
+    // 类型名 -> 实体类及其批量创建方法
+    private final Map<String, ImportTarget<?>> targets = new LinkedHashMap<>();
+
+    private final CategoryService categoryService;
+    private final TagService tagService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    private final int batchSize;
+
+    public ImportService(ArticleService articleService, TodoService todoService, DiaryService diaryService,
+                         MemoService memoService, ExpenseService expenseService, VideoService videoService,
+                         AudioService audioService, WebsiteService websiteService,
+                         StudyCheckInService studyCheckInService, TravelPlanService travelPlanService,
+                         CategoryService categoryService, TagService tagService,
+                         ObjectMapper objectMapper, Validator validator,
+                         @Value("${import.batch-size:500}") int batchSize) {
+        this.categoryService = categoryService;
+        this.tagService = tagService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+
+        register("article", Article.class, articleService::createArticles);
+        register("todo", Todo.class, todoService::createTodos);
+        register("diary", Diary.class, diaryService::createDiaries);
+        register("memo", Memo.class, memoService::createMemos);
+        register("expense", Expense.class, expenseService::createExpenses);
+        register("video", Video.class, videoService::createVideos);
+        register("audio", Audio.class, audioService::createAudios);
+        register("website", Website.class, websiteService::createWebsites);
+        register("studyCheckIn", StudyCheckIn.class, studyCheckInService::createStudyCheckIns);
+        register("travelPlan", TravelPlan.class, travelPlanService::createTravelPlans);
+    }
+
+    private <T extends Info> void register(String name, Class<T> type, Function<List<T>, List<Long>> creator) {
+        targets.put(name, new ImportTarget<>(type, creator));
+    }
+
+    /**
+     * 导入NDJSON数据
+     * @param reader 请求体
+     * @param listener 接收进度、单行错误和结束事件
+     */
+    public void importRecords(BufferedReader reader, Consumer<ImportEventDTO> listener) throws IOException {
+        ImportRun run = new ImportRun(listener);
+        String text;
+        long lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(lineNumber, parse(text, run));
+            } catch (BusinessException | IOException | IllegalArgumentException e) {
+                run.fail(lineNumber, e.getMessage());
+            }
+        }
+        run.flushAll();
+        listener.accept(new ImportEventDTO("done", null, run.imported, run.failed, null));
+    }
+
+    /**
+     * 解析一行记录：确定类型、解析分类和标签名称、转换为实体并校验
+     */
+    private Parsed parse(String text, ImportRun run) throws IOException {
+        JsonNode node = objectMapper.readTree(text);
+        if (!(node instanceof ObjectNode record)) {
+            throw new BusinessException("每行必须是一个JSON对象");
+        }
+        String typeName = record.path("type").asText(null);
+        ImportTarget<?> target = typeName == null ? null : targets.get(typeName);
+        if (target == null) {
+            throw new BusinessException("不支持的类型: " + typeName + "，可选值: " + targets.keySet());
+        }
+        record.remove("type");
+        record.remove("id");
+
+        // 分类和标签名称替换为ID引用
+        JsonNode category = record.get("category");
+        if (category != null && category.isValueNode() && !category.isNull()) {
+            record.putObject("category").put("id", run.categoryId(category));
+        }
+        JsonNode tags = record.get("tags");
+        if (tags != null && tags.isArray()) {
+            ArrayNode resolved = record.putArray("tags");
+            for (JsonNode tag : tags) {
+                resolved.add(tag.isObject() ? tag : objectMapper.createObjectNode().put("id", run.tagId(tag)));
+            }
+        }
+        Info entity = objectMapper.treeToValue(record, target.type());
+
+        Set<ConstraintViolation<Info>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Info> violation = violations.iterator().next();
+            throw new BusinessException(violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        return new Parsed(target, entity);
+    }
+
+    private record Parsed(ImportTarget<?> target, Info entity) {
+    }
+
+    private record ImportTarget<T extends Info>(Class<T> type, Function<List<T>, List<Long>> creator) {
+
+        /**
+         * 批量写入一批记录；整批失败时逐条重试，定位出错的行
+         */
+        @SuppressWarnings("unchecked")
+        void write(List<Long> lines, List<Info> entities, ImportRun run) {
+            try {
+                run.imported += creator.apply((List<T>) entities).size();
+            } catch (RuntimeException batchError) {
+                for (int i = 0; i < entities.size(); i++) {
+                    try {
+                        run.imported += creator.apply(List.of((T) entities.get(i))).size();
+                    } catch (RuntimeException e) {
+                        run.fail(lines.get(i), rootMessage(e));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * 一次导入的状态：各类型待写入的缓冲、分类和标签的名称缓存、计数
+     */
+    private class ImportRun {
+        private final Consumer<ImportEventDTO> listener;
+        private final Map<ImportTarget<?>, List<Info>> pending = new HashMap<>();
+        private final Map<ImportTarget<?>, List<Long>> pendingLines = new HashMap<>();
+        private final Map<String, Long> categoryIds = new HashMap<>();
+        private final Map<String, Long> tagIds = new HashMap<>();
+        private long imported;
+        private long failed;
+
+        ImportRun(Consumer<ImportEventDTO> listener) {
+            this.listener = listener;
+            // 分类和标签数量很少，导入开始时一次性加载
+            categoryService.findAllCategories().forEach(c -> categoryIds.putIfAbsent(c.getName(), c.getId()));
+            tagService.findAllTags().forEach(t -> tagIds.putIfAbsent(t.getName(), t.getId()));
+        }
+
+        void add(long line, Parsed parsed) {
+            pending.computeIfAbsent(parsed.target(), t -> new ArrayList<>(batchSize)).add(parsed.entity());
+            pendingLines.computeIfAbsent(parsed.target(), t -> new ArrayList<>(batchSize)).add(line);
+            if (pending.get(parsed.target()).size() >= batchSize) {
+                flush(parsed.target());
+            }
+        }
+
+        void flushAll() {
+            new ArrayList<>(pending.keySet()).forEach(this::flush);
+        }
+
+        private void flush(ImportTarget<?> target) {
+            List<Info> entities = pending.remove(target);
+            List<Long> lines = pendingLines.remove(target);
+            if (entities == null || entities.isEmpty()) {
+                return;
+            }
+            target.write(lines, entities, this);
+            listener.accept(new ImportEventDTO("progress", lines.get(lines.size() - 1), imported, failed, null));
+        }
+
+        void fail(long line, String message) {
+            failed++;
+            listener.accept(new ImportEventDTO("error", line, imported, failed, message));
+        }
+
+        Long categoryId(JsonNode value) {
+            if (value.isNumber()) {
+                return value.asLong();
+            }
+            return categoryIds.computeIfAbsent(value.asText(), name -> {
+                Category category = new Category();
+                category.setName(name);
+                return categoryService.createCategory(category).getId();
+            });
+        }
+
+        Long tagId(JsonNode value) {
+            if (value.isNumber()) {
+                return value.asLong();
+            }
+            return tagIds.computeIfAbsent(value.asText(), name -> {
+                Tag tag = new Tag();
+                tag.setName(name);
+                return tagService.createTag(tag).getId();
+            });
+        }
+    }
+}
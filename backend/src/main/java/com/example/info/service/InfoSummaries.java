@@ -0,0 +1,271 @@
+package com.example.info.service;
+
+import com.example.info.common.CursorSlice;
+import com.example.info.common.KeysetPager;
+import com.example.info.dto.InfoSummaryDTO;
+import com.example.info.entity.Info;
+import com.example.info.entity.Tag;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Lob;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 列表页摘要查询
+ * 只查询列表需要的列：@Lob字段不出现在SELECT中，正文（或该类型的说明字段）只在数据库端截取前EXCERPT_SOURCE_LENGTH个字符，
+ * 标签只从中间表读取ID，分类和标签本身从进程内缓存中获取，因此每一行的数据量与正文长度无关
+ */
+@Service
+public class InfoSummaries {
+
+    // 摘要的最大字符数
+    static final int EXCERPT_LENGTH = 150;
+
+    // 数据库端截取的正文长度，留出HTML标签占用的字符
+    static final int EXCERPT_SOURCE_LENGTH = 1000;
+
+    // 摘要以外单独处理的公共字段
+    private static final Set<String> COMMON_FIELDS = Set.of("id", "title", "content", "createdTime", "updatedTime");
+
+    private static final Pattern TAG = Pattern.compile("<[^>]*(>|$)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    // 实体类型 -> 摘要中额外输出的普通字段
+    private final Map<Class<?>, List<String>> attributeNames = new ConcurrentHashMap<>();
+
+    // 实体类型 -> 摘要的来源字段
+    private final Map<Class<?>, String> excerptSources = new ConcurrentHashMap<>();
+
+    public InfoSummaries(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    /**
+     * 分页查询摘要
+     * @param type 实体类型
+     * @param spec 过滤条件，与实体分页查询使用的条件相同
+     * @param pageable 分页参数
+     * @return 摘要分页对象
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> Page<InfoSummaryDTO> fetch(Class<T> type, Specification<T> spec, Pageable pageable) {
+        List<InfoSummaryDTO> content = pageable.isPaged()
+                ? list(type, spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize())
+                : list(type, spec, pageable.getSort(), 0, null);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(type, spec));
+    }
+
+    /**
+     * 游标分页查询摘要，不执行COUNT查询
+     * @param type 实体类型
+     * @param spec 过滤条件，与实体分页查询使用的条件相同
+     * @param sort 排序方式
+     * @param after 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 摘要游标分页对象
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> CursorSlice<InfoSummaryDTO> fetchAfter(Class<T> type, Specification<T> spec,
+                                                                  Sort sort, String after, int size) {
+        return KeysetPager.fetch(spec, sort, after, size,
+                (effective, keysetSort, limit) -> list(type, effective, keysetSort, 0, limit),
+                InfoSummaryDTO::getId, InfoSummaries::sortValue);
+    }
+
+    private <T extends Info> List<InfoSummaryDTO> list(Class<T> type, Specification<T> spec, Sort sort,
+                                                       int firstResult, Integer maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        List<String> attributes = attributeNames(type);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        selections.add(root.get("title"));
+        selections.add(root.get("createdTime"));
+        selections.add(root.get("updatedTime"));
+        // 外键列本身即为分类ID，不需要连接categories表
+        selections.add(root.get("category").get("id"));
+        selections.add(cb.substring(root.<String>get(excerptSource(type)).as(String.class), 1, EXCERPT_SOURCE_LENGTH));
+        for (String attribute : attributes) {
+            selections.add(root.get(attribute));
+        }
+        query.multiselect(selections);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        typedQuery.setFirstResult(firstResult);
+        if (maxResults != null) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        List<Tuple> rows = typedQuery.getResultList();
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        rows.forEach(row -> ids.add(row.get(0, Long.class)));
+        Map<Long, List<Long>> tagIds = tagIds(type, ids);
+
+        List<InfoSummaryDTO> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Long id = row.get(0, Long.class);
+            Long categoryId = row.get(4, Long.class);
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                values.put(attributes.get(i), row.get(6 + i));
+            }
+            content.add(new InfoSummaryDTO(id, row.get(1, String.class), row.get(2, Date.class),
+                    row.get(3, Date.class), categoryId == null ? null : referenceDataCache.category(categoryId),
+                    tags(tagIds.getOrDefault(id, List.of())), excerpt(row.get(5, String.class)), values));
+        }
+        return content;
+    }
+
+    /**
+     * 摘要中排序字段的值，用于生成游标；类型特有的字段从attributes中读取
+     */
+    private static Object sortValue(InfoSummaryDTO summary, String property) {
+        return switch (property) {
+            case "id" -> summary.getId();
+            case "title" -> summary.getTitle();
+            case "createdTime" -> summary.getCreatedTime();
+            case "updatedTime" -> summary.getUpdatedTime();
+            default -> summary.getAttributes().get(property);
+        };
+    }
+
+    /**
+     * 把正文开头转换为纯文本摘要：去掉HTML标签、合并空白，超出长度时截断并加省略号
+     */
+    static String excerpt(String source) {
+        if (source == null) {
+            return null;
+        }
+        String text = TAG.matcher(source).replaceAll(" ").replace("&nbsp;", " ");
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        if (text.length() <= EXCERPT_LENGTH && source.length() < EXCERPT_SOURCE_LENGTH) {
+            return text;
+        }
+        return text.substring(0, Math.min(text.length(), EXCERPT_LENGTH)) + "…";
+    }
+
+    private <T extends Info> long count(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * 一次查询当前页所有记录的标签ID，只读取中间表
+     */
+    private Map<Long, List<Long>> tagIds(Class<? extends Info> type, List<Long> ids) {
+        Map<Long, List<Long>> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String entityName = entityManager.getMetamodel().entity(type).getName();
+        List<Object[]> pairs = entityManager.createQuery(
+                        "select i.id, t.id from " + entityName + " i join i.tags t where i.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Object[] pair : pairs) {
+            result.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+        }
+        return result;
+    }
+
+    private List<Tag> tags(List<Long> ids) {
+        List<Tag> tags = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Tag tag = referenceDataCache.tag(id);
+            if (tag != null) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * 摘要的来源字段：实体自己声明了content以外的@Lob文本字段时（如网站的description）使用该字段，
+     * 这些类型的正文填写在该字段中，继承的content为空；其余类型使用content
+     */
+    private String excerptSource(Class<?> type) {
+        return excerptSources.computeIfAbsent(type, key -> {
+            for (Field field : key.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Lob.class) && field.getType() == String.class
+                        && !"content".equals(field.getName())) {
+                    return field.getName();
+                }
+            }
+            return "content";
+        });
+    }
+
+    /**
+     * 摘要中额外输出的字段：除公共字段外的普通列，不包括@Lob字段和不参与序列化的字段
+     */
+    private List<String> attributeNames(Class<?> type) {
+        return attributeNames.computeIfAbsent(type, key -> {
+            EntityType<?> entityType = entityManager.getMetamodel().entity(key);
+            List<String> names = new ArrayList<>();
+            for (SingularAttribute<?, ?> attribute : entityType.getSingularAttributes()) {
+                if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                        || COMMON_FIELDS.contains(attribute.getName())) {
+                    continue;
+                }
+                if (attribute.getJavaMember() instanceof AnnotatedElement member
+                        && (member.isAnnotationPresent(Lob.class) || member.isAnnotationPresent(JsonIgnore.class))) {
+                    continue;
+                }
+                names.add(attribute.getName());
+            }
+            names.sort(null);
+            return List.copyOf(names);
+        });
+    }
+}
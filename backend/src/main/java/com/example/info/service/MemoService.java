@@ -1,69 +1,221 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Memo;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.MemoRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class MemoService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "content");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final MemoRepository memoRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Memo createMemo(Memo memo) {
-        return memoRepository.save(memo);
+        Memo saved = memoRepository.save(memo);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createMemos(List<Memo> memos) {
+        return bulkOperations.insertAll(memos, this::index);
     }
 
     @Transactional
     public void deleteMemo(Long id) {
         memoRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteMemos(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Memo.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
+    }
+
+    @Transactional
+    public int deleteMemos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteMemos(bulkOperations.findIds(Memo.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateMemos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(Memo.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(Memo.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Memo updateMemo(Long id, Map<String, Object> memo) {
+        Memo existingMemo = memoRepository.findById(id).orElse(null);
+        if (existingMemo != null) {
+            String title = existingMemo.getTitle();
+            mergePatcher.update(existingMemo, memo);
+            Memo saved = memoRepository.save(existingMemo);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || memo.containsKey("content"));
+            return saved;
+        }
+        return null;
     }
 
     @Transactional
-    public Memo updateMemo(Long id, Memo memo) {
+    public Memo patchMemo(Long id, Map<String, Object> patch) {
         Memo existingMemo = memoRepository.findById(id).orElse(null);
         if (existingMemo != null) {
-            existingMemo.setTitle(memo.getTitle());
-            existingMemo.setContent(memo.getContent());
-            existingMemo.setCategory(memo.getCategory());
-            existingMemo.setTags(memo.getTags());
-            return memoRepository.save(existingMemo);
+            String title = existingMemo.getTitle();
+            mergePatcher.apply(existingMemo, patch);
+            Memo saved = memoRepository.save(existingMemo);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || patch.containsKey("content"));
+            return saved;
         }
         return null;
     }
 
     @Transactional(readOnly = true)
-    public Page<Memo> fetchMemos(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<Memo> spec = (root, query, cb) -> {
+    public Page<Memo> fetchMemos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable, ids -> memoRepository.findAll(RelevancePager.idIn(ids)), Memo::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Memo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return memoRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchMemos相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchMemoSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable,
+                        ids -> infoSummaries.fetch(Memo.class, RelevancePager.idIn(ids), Pageable.unpaged()).getContent(),
+                        InfoSummaryDTO::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Memo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Memo.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchMemos相同，不执行COUNT查询，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<InfoSummaryDTO> fetchMemoSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<Memo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        // 相关度无法作为游标字段，游标分页改为按创建时间排序
+        return infoSummaries.fetchAfter(Memo.class, spec, RelevancePager.fallback(sort), after, size);
+    }
+
+    /**
+     * 按相关度降序排列的候选ID，过滤条件与buildSpecification相同；索引无法确定相关度时返回null
+     */
+    private List<Long> rankedIds(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, category, tagIds, matchAllTags).rankedIds();
+    }
+
+    private IndexQuery indexQuery(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        return IndexQuery.of(Memo.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, categoryId)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Memo> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = indexQuery(searchText, category, tagIds, matchAllTags);
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate contentLike = cb.like(root.get("content"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, contentLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return memoRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -75,4 +227,51 @@ public class MemoService {
     public List<Memo> findAllMemos() {
         return memoRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllMemos(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Memo.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Memo.class, this::index);
+    }
+
+    private void index(Memo memo) {
+        searchIndex.index(Memo.class, memo.getId(), text(memo));
+        bitmapIndex.index(Memo.class, memo.getId(), attributes(memo));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 标题和正文都没有修改时只更新位图索引，不读取延迟加载的正文；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Memo memo, boolean textChanged) {
+        Long id = memo.getId();
+        String[] text = textChanged ? text(memo) : null;
+        IndexAttributes attributes = attributes(memo);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Memo.class, id, text);
+            }
+            bitmapIndex.index(Memo.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Memo memo) {
+        return new String[]{memo.getTitle(), memo.getContent()};
+    }
+
+    private static IndexAttributes attributes(Memo memo) {
+        return IndexAttributes.create()
+                .category(memo.getCategory())
+                .tags(memo.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Memo.class, id);
+        bitmapIndex.remove(Memo.class, id);
+    }
 }
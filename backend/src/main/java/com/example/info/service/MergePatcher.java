@@ -0,0 +1,147 @@
+package com.example.info.service;
+
+import com.example.info.common.PartialUpdater;
+import com.example.info.entity.Category;
+import com.example.info.entity.Info;
+import com.example.info.entity.Tag;
+import com.example.info.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按JSON Merge Patch（RFC 7396）语义修改已加载的实体
+ * 补丁中出现的字段才会被修改，值为null表示清空该字段；PUT更新同样只修改请求体中出现的字段；
+ * 实体上标注了@DynamicUpdate，提交时Hibernate只对实际变化的列生成UPDATE，未修改的@Lob内容不会重新发送
+ */
+@Service
+public class MergePatcher {
+
+    // 由系统维护、不允许通过补丁修改的字段
+    private static final Set<String> PROTECTED_FIELDS = Set.of("id", "createdTime", "updatedTime", "views");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public MergePatcher(ObjectMapper objectMapper, ReferenceDataCache referenceDataCache) {
+        this.objectMapper = objectMapper;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    /**
+     * 把补丁应用到实体上
+     * @param entity 当前事务中已加载的实体
+     * @param patch 字段名 -> 新值；categoryId修改所属分类，tagIds整体替换标签
+     * @return entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> T apply(T entity, Map<String, Object> patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new BusinessException("没有需要修改的字段");
+        }
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entity.getClass());
+        BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        patch.forEach((field, value) -> {
+            if ("categoryId".equals(field)) {
+                wrapper.setPropertyValue("category", value == null ? null : findCategory(value));
+            } else if ("tagIds".equals(field)) {
+                wrapper.setPropertyValue("tags", findTags(value));
+            } else {
+                SingularAttribute<?, ?> attribute = basicAttribute(entityType, field);
+                wrapper.setPropertyValue(field, value == null ? null : convert(field, value, attribute.getJavaType()));
+            }
+        });
+        return entity;
+    }
+
+    /**
+     * 把PUT请求体应用到实体上
+     * 请求体按实体类型反序列化（分类、标签等字段的格式与实体JSON相同），只复制请求体中出现的字段，
+     * 省略的字段（包括标签、状态等带初始值的字段）保持不变
+     * @param entity 当前事务中已加载的实体
+     * @param body 请求体，属性名 -> 值
+     * @return entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Info> T update(T entity, Map<String, Object> body) {
+        if (body == null || body.isEmpty()) {
+            throw new BusinessException("没有需要修改的字段");
+        }
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) entity.getClass();
+        T source;
+        try {
+            source = objectMapper.convertValue(body, type);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("请求体无效: " + e.getMessage());
+        }
+        return PartialUpdater.copy(source, entity, body.keySet());
+    }
+
+    private SingularAttribute<?, ?> basicAttribute(EntityType<?> entityType, String field) {
+        Attribute<?, ?> attribute;
+        try {
+            attribute = entityType.getAttribute(field);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("不支持修改的字段: " + field);
+        }
+        if (!(attribute instanceof SingularAttribute<?, ?> singular)
+                || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                || PROTECTED_FIELDS.contains(field)) {
+            throw new BusinessException("不支持修改的字段: " + field);
+        }
+        return singular;
+    }
+
+    private Category findCategory(Object value) {
+        Category category = referenceDataCache.category(convert("categoryId", value, Long.class));
+        if (category == null) {
+            throw new BusinessException("分类不存在: " + value);
+        }
+        return category;
+    }
+
+    private List<Tag> findTags(Object value) {
+        List<Tag> tags = new ArrayList<>();
+        if (value == null) {
+            return tags;
+        }
+        if (!(value instanceof Collection<?> ids)) {
+            throw new BusinessException("字段tagIds的值无效: " + value);
+        }
+        for (Object id : ids) {
+            Tag tag = referenceDataCache.tag(convert("tagIds", id, Long.class));
+            if (tag == null) {
+                throw new BusinessException("标签不存在: " + id);
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private <V> V convert(String field, Object value, Class<V> type) {
+        try {
+            return objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("字段" + field + "的值无效: " + value);
+        }
+    }
+}
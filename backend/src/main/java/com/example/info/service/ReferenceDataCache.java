@@ -0,0 +1,232 @@
+package com.example.info.service;
+
+import com.example.info.dto.CacheStatsDTO;
+import com.example.info.entity.Category;
+import com.example.info.entity.Tag;
+import com.example.info.repository.CategoryRepository;
+import com.example.info.repository.TagRepository;
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分类和标签的进程内缓存
+ * 两张表都很小且读多写少，首次访问时整表加载为不可变快照（id -> 实体、名称 -> id），之后的查询不再访问数据库；
+ * 实体生命周期回调在事务提交后按条目替换或移除快照中的记录，并递增版本号。
+ * 返回的是只含基本字段的副本，不是持久化上下文中的实体，调用方不应修改
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final Table<Category> categories;
+
+    private final Table<Tag> tags;
+
+    public ReferenceDataCache(CategoryRepository categoryRepository, TagRepository tagRepository) {
+        this.categories = new Table<>("category", categoryRepository::findAll, Category::getId, Category::getName,
+                ReferenceDataCache::copy);
+        this.tags = new Table<>("tag", tagRepository::findAll, Tag::getId, Tag::getName, ReferenceDataCache::copy);
+    }
+
+    /**
+     * 全部分类，按ID升序
+     */
+    public List<Category> categories() {
+        return categories.snapshot().rows;
+    }
+
+    public Category category(Long id) {
+        return id == null ? null : categories.snapshot().byId.get(id);
+    }
+
+    /**
+     * 按名称查找分类ID，同名时取ID最小的一个
+     */
+    public Long categoryId(String name) {
+        return categories.snapshot().idsByName.get(name);
+    }
+
+    /**
+     * 全部标签，按ID升序
+     */
+    public List<Tag> tags() {
+        return tags.snapshot().rows;
+    }
+
+    public Tag tag(Long id) {
+        return id == null ? null : tags.snapshot().byId.get(id);
+    }
+
+    /**
+     * 按名称查找标签ID，同名时取ID最小的一个
+     */
+    public Long tagId(String name) {
+        return tags.snapshot().idsByName.get(name);
+    }
+
+    /**
+     * 实体新增或修改提交后调用
+     */
+    public void saved(Object entity) {
+        if (entity instanceof Category category) {
+            categories.put(category);
+        } else if (entity instanceof Tag tag) {
+            tags.put(tag);
+        }
+    }
+
+    /**
+     * 实体删除提交后调用
+     */
+    public void removed(Object entity) {
+        if (entity instanceof Category category) {
+            categories.remove(category.getId());
+        } else if (entity instanceof Tag tag) {
+            tags.remove(tag.getId());
+        }
+    }
+
+    /**
+     * 从快照恢复后整表重新加载
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void invalidateAll() {
+        categories.invalidate();
+        tags.invalidate();
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return List.of(categories.stats(), tags.stats());
+    }
+
+    private static Category copy(Category source) {
+        Category copy = new Category();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        return copy;
+    }
+
+    private static Tag copy(Tag source) {
+        Tag copy = new Tag();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        return copy;
+    }
+
+    /**
+     * 单张表的缓存
+     * 读取无锁；加载和修改互斥，加载期间发生的修改会使本次加载结果作废，避免装入过期快照
+     */
+    private static class Table<T> {
+        private final String name;
+        private final Supplier<List<T>> loader;
+        private final Function<T, Long> idOf;
+        private final Function<T, String> nameOf;
+        private final UnaryOperator<T> copier;
+
+        private volatile Snapshot<T> current;
+        private final AtomicLong version = new AtomicLong();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        Table(String name, Supplier<List<T>> loader, Function<T, Long> idOf, Function<T, String> nameOf,
+              UnaryOperator<T> copier) {
+            this.name = name;
+            this.loader = loader;
+            this.idOf = idOf;
+            this.nameOf = nameOf;
+            this.copier = copier;
+        }
+
+        Snapshot<T> snapshot() {
+            Snapshot<T> snapshot = current;
+            if (snapshot != null) {
+                hits.increment();
+                return snapshot;
+            }
+            misses.increment();
+            return load();
+        }
+
+        private synchronized Snapshot<T> load() {
+            if (current != null) {
+                return current;
+            }
+            long expected = version.get();
+            List<T> rows = new ArrayList<>();
+            for (T row : loader.get()) {
+                rows.add(copier.apply(row));
+            }
+            Snapshot<T> snapshot = new Snapshot<>(rows, idOf, nameOf);
+            if (version.get() == expected) {
+                current = snapshot;
+            }
+            return snapshot;
+        }
+
+        synchronized void put(T entity) {
+            version.incrementAndGet();
+            Snapshot<T> snapshot = current;
+            if (snapshot == null) {
+                return;
+            }
+            T copy = copier.apply(entity);
+            Map<Long, T> byId = new TreeMap<>(snapshot.byId);
+            byId.put(idOf.apply(copy), copy);
+            current = new Snapshot<>(byId.values(), idOf, nameOf);
+        }
+
+        synchronized void remove(Long id) {
+            version.incrementAndGet();
+            Snapshot<T> snapshot = current;
+            if (snapshot == null || !snapshot.byId.containsKey(id)) {
+                return;
+            }
+            Map<Long, T> byId = new TreeMap<>(snapshot.byId);
+            byId.remove(id);
+            current = new Snapshot<>(byId.values(), idOf, nameOf);
+        }
+
+        synchronized void invalidate() {
+            version.incrementAndGet();
+            current = null;
+        }
+
+        CacheStatsDTO stats() {
+            Snapshot<T> snapshot = current;
+            return new CacheStatsDTO(name, snapshot == null ? 0 : snapshot.rows.size(), version.get(),
+                    hits.sum(), misses.sum());
+        }
+    }
+
+    /**
+     * 不可变的整表快照
+     */
+    private static class Snapshot<T> {
+        final List<T> rows;
+        final Map<Long, T> byId;
+        final Map<String, Long> idsByName;
+
+        Snapshot(Collection<T> source, Function<T, Long> idOf, Function<T, String> nameOf) {
+            List<T> sorted = new ArrayList<>(source);
+            sorted.sort(Comparator.comparing(idOf));
+            Map<Long, T> byId = new HashMap<>();
+            Map<String, Long> idsByName = new HashMap<>();
+            for (T row : sorted) {
+                byId.put(idOf.apply(row), row);
+                idsByName.putIfAbsent(nameOf.apply(row), idOf.apply(row));
+            }
+            this.rows = Collections.unmodifiableList(sorted);
+            this.byId = Collections.unmodifiableMap(byId);
+            this.idsByName = Collections.unmodifiableMap(idsByName);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.info.service;
+
+import com.example.info.dto.SearchResponseDTO;
+import com.example.info.dto.SearchResultDTO;
+import com.example.info.entity.*;
+import com.example.info.search.SearchHit;
+import com.example.info.search.SearchIndex;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+/**
+ * 统一搜索服务
+ * 在有界线程池上并发查询所有Info类型，各类型先由全文索引确定候选记录，再按相关度或创建时间合并结果，
+ * 超过全局截止时间仍未返回的类型会被放弃，只返回已完成部分
+ */
+@Slf4j
+@Service
+public class SearchService {
+
+    // 单次搜索返回条数上限
+    private static final int MAX_LIMIT = 100;
+
+    // 类型名 -> 该类型的分页搜索方法
+    private final Map<String, TypeSource> sources = new LinkedHashMap<>();
+
+    private final SearchIndex searchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ExecutorService executor;
+
+    private final long timeoutMillis;
+
+    // 每条按ID取行的语句中IN列表的最大长度，与位图索引的候选集上限一致
+    private final int maxInListSize;
+
+    public SearchService(ArticleService articleService, TodoService todoService, DiaryService diaryService,
+                         MemoService memoService, ExpenseService expenseService, VideoService videoService,
+                         AudioService audioService, WebsiteService websiteService,
+                         StudyCheckInService studyCheckInService, TravelPlanService travelPlanService,
+                         SearchIndex searchIndex,
+                         @Value("${search.fanout.threads:8}") int threads,
+                         @Value("${search.fanout.queue-capacity:200}") int queueCapacity,
+                         @Value("${search.fanout.timeout-ms:800}") long timeoutMillis,
+                         @Value("${search.bitmap.max-in-list:10000}") int maxInListSize) {
+        this.searchIndex = searchIndex;
+        this.timeoutMillis = timeoutMillis;
+        this.maxInListSize = maxInListSize;
+        // 队列满时直接拒绝，该类型记为超时，避免请求在线程池中堆积
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        register("article", Article.class,
+                (q, p) -> articleService.fetchArticles(q, "all", 0, p, "all", null, false).getContent());
+        register("todo", Todo.class,
+                (q, p) -> todoService.fetchTodos(q, null, null, false, null, null, p).getContent());
+        register("diary", Diary.class,
+                (q, p) -> diaryService.fetchDiaries(q, null, null, false, null, null, p).getContent());
+        register("memo", Memo.class, (q, p) -> memoService.fetchMemos(q, null, null, false, p).getContent());
+        register("expense", Expense.class, (q, p) -> expenseService.fetchExpenses(q, null, null, false, p).getContent());
+        register("video", Video.class, (q, p) -> videoService.fetchVideos(q, null, null, false, p).getContent());
+        register("audio", Audio.class, (q, p) -> audioService.fetchAudios(q, null, null, false, p).getContent());
+        register("website", Website.class, (q, p) -> websiteService.fetchWebsites(q, null, null, false, p).getContent());
+        register("studyCheckIn", StudyCheckIn.class,
+                (q, p) -> studyCheckInService.fetchStudyCheckIns(q, null, null, false, p).getContent());
+        register("travelPlan", TravelPlan.class,
+                (q, p) -> travelPlanService.fetchTravelPlans(q, null, null, false, p).getContent());
+    }
+
+    /**
+     * 跨类型搜索
+     * @param searchText 搜索文本
+     * @param types 需要搜索的类型，为空表示全部类型
+     * @param sortBy 合并排序方式：relevance（相关度）或 createdTime（创建时间倒序）
+     * @param limit 每个类型最多返回的条数，同时也是合并后的总条数上限
+     * @return 合并后的搜索结果
+     */
+    public SearchResponseDTO search(String searchText, Collection<String> types, String sortBy, int limit) {
+        Collection<String> targets = types == null || types.isEmpty() ? sources.keySet() : types;
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdTime"));
+        boolean byCreatedTime = "createdTime".equals(sortBy);
+
+        // 并发提交各类型的查询
+        Map<String, Future<List<SearchResultDTO>>> futures = new LinkedHashMap<>();
+        List<String> timedOutTypes = new ArrayList<>();
+        for (String type : targets) {
+            TypeSource source = sources.get(type);
+            if (source == null) {
+                continue;
+            }
+            try {
+                futures.put(type, executor.submit(() -> source.search(type, searchText, byCreatedTime, pageable)));
+            } catch (RejectedExecutionException e) {
+                timedOutTypes.add(type);
+            }
+        }
+
+        // 所有类型共用一个截止时间，总耗时取决于最慢的类型而不是各类型之和
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<SearchResultDTO> results = new ArrayList<>();
+        for (Map.Entry<String, Future<List<SearchResultDTO>>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.addAll(entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                timedOutTypes.add(entry.getKey());
+            } catch (ExecutionException e) {
+                log.warn("统一搜索查询{}失败", entry.getKey(), e.getCause());
+                timedOutTypes.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOutTypes.add(entry.getKey());
+            }
+        }
+
+        Comparator<SearchResultDTO> newestFirst = Comparator.comparing(SearchResultDTO::getCreatedTime,
+                Comparator.nullsLast(Comparator.reverseOrder()));
+        if (byCreatedTime) {
+            results.sort(newestFirst);
+        } else {
+            results.sort(Comparator.comparingDouble(SearchResultDTO::getScore).reversed().thenComparing(newestFirst));
+        }
+        if (results.size() > limit) {
+            results = new ArrayList<>(results.subList(0, limit));
+        }
+        return new SearchResponseDTO(results, !timedOutTypes.isEmpty(), timedOutTypes);
+    }
+
+    /**
+     * 支持统一搜索的类型名
+     */
+    public Set<String> supportedTypes() {
+        return Collections.unmodifiableSet(sources.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T extends Info> void register(String type, Class<T> entityClass,
+                                           BiFunction<String, Pageable, List<T>> fetcher) {
+        sources.put(type, new TypeSource(entityClass, fetcher));
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        ThreadFactory delegate = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("search-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 单个类型的搜索来源：实体类型 + 分页查询方法
+     */
+    private class TypeSource {
+        private final Class<? extends Info> entityClass;
+        private final BiFunction<String, Pageable, ? extends List<? extends Info>> fetcher;
+
+        TypeSource(Class<? extends Info> entityClass,
+                   BiFunction<String, Pageable, ? extends List<? extends Info>> fetcher) {
+            this.entityClass = entityClass;
+            this.fetcher = fetcher;
+        }
+
+        /**
+         * 搜索单个类型
+         * 全文索引只排序一次：按相关度时取相似度最高的前limit条命中，按创建时间时在全部命中中取最新的limit条，
+         * 之后只按ID读取这些记录的标题和创建时间，相关度直接使用索引算出的相似度；
+         * 按创建时间时命中可能很多，按IN列表上限分段查询，每段取最新的limit条后再合并
+         */
+        List<SearchResultDTO> search(String type, String searchText, boolean byCreatedTime, Pageable pageable) {
+            List<SearchHit> hits = searchIndex.rank(entityClass, searchText);
+            if (hits == null) {
+                // 索引未就绪或搜索文本没有有效词项，回退到SQL条件的分页查询，相关度统一记为1
+                List<SearchResultDTO> results = new ArrayList<>();
+                for (Info info : fetcher.apply(searchText, pageable)) {
+                    results.add(new SearchResultDTO(type, info.getId(), info.getTitle(), info.getCreatedTime(), 1.0));
+                }
+                return results;
+            }
+            if (hits.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            int limit = pageable.getPageSize();
+            List<SearchHit> candidates = byCreatedTime ? hits : hits.subList(0, Math.min(limit, hits.size()));
+            Map<Long, Double> scores = new HashMap<>();
+            candidates.forEach(hit -> scores.put(hit.getId(), hit.getScore()));
+            List<Long> ids = new ArrayList<>(scores.keySet());
+            List<Object[]> rows = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += maxInListSize) {
+                rows.addAll(entityManager.createQuery("select e.id, e.title, e.createdTime from "
+                                + entityClass.getSimpleName() + " e where e.id in :ids order by e.createdTime desc", Object[].class)
+                        .setParameter("ids", ids.subList(from, Math.min(from + maxInListSize, ids.size())))
+                        .setMaxResults(limit)
+                        .getResultList());
+            }
+            if (ids.size() > maxInListSize) {
+                rows.sort(Comparator.comparing((Object[] row) -> (Date) row[2], Comparator.nullsLast(Comparator.reverseOrder())));
+                rows = rows.subList(0, Math.min(limit, rows.size()));
+            }
+
+            List<SearchResultDTO> results = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                results.add(new SearchResultDTO(type, id, (String) row[1], (Date) row[2], scores.get(id)));
+            }
+            return results;
+        }
+    }
+}
@@ -1,72 +1,191 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.StudyCheckIn;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.StudyCheckInRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class StudyCheckInService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "destination");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final StudyCheckInRepository studyCheckInRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public StudyCheckIn createStudyCheckIn(StudyCheckIn studyCheckIn) {
-        return studyCheckInRepository.save(studyCheckIn);
+        StudyCheckIn saved = studyCheckInRepository.save(studyCheckIn);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createStudyCheckIns(List<StudyCheckIn> studyCheckIns) {
+        return bulkOperations.insertAll(studyCheckIns, this::index);
     }
 
     @Transactional
     public void deleteStudyCheckIn(Long id) {
         studyCheckInRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteStudyCheckIns(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(StudyCheckIn.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public StudyCheckIn updateStudyCheckIn(Long id, StudyCheckIn studyCheckIn) {
+    public int deleteStudyCheckIns(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteStudyCheckIns(bulkOperations.findIds(StudyCheckIn.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateStudyCheckIns(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(StudyCheckIn.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(StudyCheckIn.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public StudyCheckIn updateStudyCheckIn(Long id, Map<String, Object> studyCheckIn) {
         StudyCheckIn existing = studyCheckInRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(studyCheckIn.getTitle());
-            existing.setDestination(studyCheckIn.getDestination());
-            existing.setTravelDate(studyCheckIn.getTravelDate());
-            existing.setTransport(studyCheckIn.getTransport());
-            existing.setAttractions(studyCheckIn.getAttractions());
-            existing.setCategory(studyCheckIn.getCategory());
-            existing.setTags(studyCheckIn.getTags());
-            return studyCheckInRepository.save(existing);
+            String[] text = text(existing);
+            mergePatcher.update(existing, studyCheckIn);
+            StudyCheckIn saved = studyCheckInRepository.save(existing);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public StudyCheckIn patchStudyCheckIn(Long id, Map<String, Object> patch) {
+        StudyCheckIn existingStudyCheckIn = studyCheckInRepository.findById(id).orElse(null);
+        if (existingStudyCheckIn != null) {
+            String[] text = text(existingStudyCheckIn);
+            mergePatcher.apply(existingStudyCheckIn, patch);
+            StudyCheckIn saved = studyCheckInRepository.save(existingStudyCheckIn);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<StudyCheckIn> fetchStudyCheckIns(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<StudyCheckIn> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return studyCheckInRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchStudyCheckIns相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchStudyCheckInSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<StudyCheckIn> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(StudyCheckIn.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchStudyCheckIns相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<StudyCheckIn> fetchStudyCheckIns(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<StudyCheckIn> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchStudyCheckInSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<StudyCheckIn> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(StudyCheckIn.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<StudyCheckIn> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(StudyCheckIn.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate destinationLike = cb.like(root.get("destination"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, destinationLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return studyCheckInRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -78,4 +197,51 @@ public class StudyCheckInService {
     public List<StudyCheckIn> findAllStudyCheckIns() {
         return studyCheckInRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllStudyCheckIns(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(StudyCheckIn.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(StudyCheckIn.class, this::index);
+    }
+
+    private void index(StudyCheckIn studyCheckIn) {
+        searchIndex.index(StudyCheckIn.class, studyCheckIn.getId(), text(studyCheckIn));
+        bitmapIndex.index(StudyCheckIn.class, studyCheckIn.getId(), attributes(studyCheckIn));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 文本字段没有修改时只更新位图索引，不重新分词；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(StudyCheckIn studyCheckIn, boolean textChanged) {
+        Long id = studyCheckIn.getId();
+        String[] text = textChanged ? text(studyCheckIn) : null;
+        IndexAttributes attributes = attributes(studyCheckIn);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(StudyCheckIn.class, id, text);
+            }
+            bitmapIndex.index(StudyCheckIn.class, id, attributes);
+        });
+    }
+
+    private static String[] text(StudyCheckIn studyCheckIn) {
+        return new String[]{studyCheckIn.getTitle(), studyCheckIn.getDestination()};
+    }
+
+    private static IndexAttributes attributes(StudyCheckIn studyCheckIn) {
+        return IndexAttributes.create()
+                .category(studyCheckIn.getCategory())
+                .tags(studyCheckIn.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(StudyCheckIn.class, id);
+        bitmapIndex.remove(StudyCheckIn.class, id);
+    }
 }
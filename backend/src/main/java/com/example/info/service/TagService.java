@@ -7,11 +7,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TagService {
     private final TagRepository tagRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Transactional
     public Tag createTag(Tag tag) {
@@ -33,13 +35,25 @@ public class TagService {
         return null;
     }
 
-    @Transactional(readOnly = true)
     public List<Tag> findAllTags() {
-        return tagRepository.findAll();
+        return referenceDataCache.tags();
+    }
+
+    /**
+     * 按名称模糊筛选标签（忽略大小写），在缓存中完成，不访问数据库
+     */
+    public List<Tag> searchTags(String searchText) {
+        List<Tag> tags = referenceDataCache.tags();
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return tags;
+        }
+        String search = searchText.toLowerCase();
+        return tags.stream()
+                .filter(t -> t.getName().toLowerCase().contains(search))
+                .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public Tag findById(Long id) {
-        return tagRepository.findById(id).orElse(null);
+        return referenceDataCache.tag(id);
     }
 }
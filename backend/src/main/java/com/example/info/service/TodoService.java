@@ -1,17 +1,36 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Todo;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.TodoRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Todo服务层
@@ -19,65 +38,207 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class TodoService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "content");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of("status", "priority");
+
     private final TodoRepository todoRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Todo createTodo(Todo todo) {
-        return todoRepository.save(todo);
+        Todo saved = todoRepository.save(todo);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createTodos(List<Todo> todos) {
+        return bulkOperations.insertAll(todos, this::index);
     }
 
     @Transactional
     public void deleteTodo(Long id) {
         todoRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteTodos(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Todo.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
+    }
+
+    @Transactional
+    public int deleteTodos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds, status, priority);
+        return deleteTodos(bulkOperations.findIds(Todo.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags, status, priority)));
+    }
+
+    @Transactional
+    public int updateTodos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds, status, priority);
+        List<Long> ids = bulkOperations.findIds(Todo.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags, status, priority));
+        return bulkOperations.updateAll(Todo.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Todo updateTodo(Long id, Map<String, Object> todo) {
+        Todo existingTodo = todoRepository.findById(id).orElse(null);
+        if (existingTodo != null) {
+            String title = existingTodo.getTitle();
+            mergePatcher.update(existingTodo, todo);
+            Todo saved = todoRepository.save(existingTodo);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || todo.containsKey("content"));
+            return saved;
+        }
+        return null;
     }
 
     @Transactional
-    public Todo updateTodo(Long id, Todo todo) {
+    public Todo patchTodo(Long id, Map<String, Object> patch) {
         Todo existingTodo = todoRepository.findById(id).orElse(null);
         if (existingTodo != null) {
-            existingTodo.setTitle(todo.getTitle());
-            existingTodo.setContent(todo.getContent());
-            existingTodo.setStatus(todo.getStatus());
-            existingTodo.setDeadline(todo.getDeadline());
-            existingTodo.setPriority(todo.getPriority());
-            existingTodo.setCategory(todo.getCategory());
-            existingTodo.setTags(todo.getTags());
-            return todoRepository.save(existingTodo);
+            String title = existingTodo.getTitle();
+            mergePatcher.apply(existingTodo, patch);
+            Todo saved = todoRepository.save(existingTodo);
+            reindex(saved, !Objects.equals(title, saved.getTitle()) || patch.containsKey("content"));
+            return saved;
         }
         return null;
     }
 
     @Transactional(readOnly = true)
-    public Page<Todo> fetchTodos(String searchText, Long categoryId, Long tagId, String status, Integer priority, Pageable pageable) {
-        Specification<Todo> spec = (root, query, cb) -> {
+    public Page<Todo> fetchTodos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags, status, priority);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable, ids -> todoRepository.findAll(RelevancePager.idIn(ids)), Todo::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Todo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, status, priority);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return todoRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchTodos相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchTodoSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority, Pageable pageable) {
+        if (RelevancePager.isRequested(pageable.getSort())) {
+            List<Long> rankedIds = rankedIds(searchText, categoryId, tagIds, matchAllTags, status, priority);
+            if (rankedIds != null) {
+                return RelevancePager.page(rankedIds, pageable,
+                        ids -> infoSummaries.fetch(Todo.class, RelevancePager.idIn(ids), Pageable.unpaged()).getContent(),
+                        InfoSummaryDTO::getId);
+            }
+            pageable = RelevancePager.fallback(pageable);
+        }
+        Specification<Todo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, status, priority);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Todo.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchTodos相同，不执行COUNT查询，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<InfoSummaryDTO> fetchTodoSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority, Sort sort, String after, int size) {
+        Specification<Todo> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags, status, priority);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        // 相关度无法作为游标字段，游标分页改为按创建时间排序
+        return infoSummaries.fetchAfter(Todo.class, spec, RelevancePager.fallback(sort), after, size);
+    }
+
+    /**
+     * 按相关度降序排列的候选ID，过滤条件与buildSpecification相同；索引无法确定相关度时返回null
+     */
+    private List<Long> rankedIds(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, category, tagIds, matchAllTags, status, priority).rankedIds();
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Todo> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = indexQuery(searchText, category, tagIds, matchAllTags, status, priority);
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate contentLike = cb.like(root.get("content"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, contentLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
-            }
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
 
-            if (status != null && !status.isEmpty()) {
-                predicates.add(cb.equal(root.get("status"), Todo.TodoStatus.valueOf(status)));
-            }
+                if (status != null && !status.isEmpty()) {
+                    predicates.add(cb.equal(root.get("status"), Todo.TodoStatus.valueOf(status)));
+                }
 
-            if (priority != null) {
-                predicates.add(cb.equal(root.get("priority"), priority));
+                if (priority != null) {
+                    predicates.add(cb.equal(root.get("priority"), priority));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        return todoRepository.findAll(spec, pageable);
+    /**
+     * 分面统计：与fetchTodos使用相同的过滤条件，返回各分类、标签、状态、优先级的记录数，索引未就绪时返回null
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Long>> fetchTodoFacets(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        return indexQuery(searchText, category, tagIds, matchAllTags, status, priority)
+                .facets(IndexAttributes.CATEGORY, IndexAttributes.TAG, "status", "priority");
+    }
+
+    private IndexQuery indexQuery(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, String status, Integer priority) {
+        return IndexQuery.of(Todo.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, categoryId)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .eq("status", status)
+                .eq("priority", priority)
+                .resolve();
     }
 
     @Transactional(readOnly = true)
@@ -89,5 +250,53 @@ public class TodoService {
     public List<Todo> findAllTodos() {
         return todoRepository.findAll();
     }
-}
 
+    @Transactional(readOnly = true)
+    public void streamAllTodos(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Todo.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Todo.class, this::index);
+    }
+
+    private void index(Todo todo) {
+        searchIndex.index(Todo.class, todo.getId(), text(todo));
+        bitmapIndex.index(Todo.class, todo.getId(), attributes(todo));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 标题和正文都没有修改时只更新位图索引，不读取延迟加载的正文；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Todo todo, boolean textChanged) {
+        Long id = todo.getId();
+        String[] text = textChanged ? text(todo) : null;
+        IndexAttributes attributes = attributes(todo);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Todo.class, id, text);
+            }
+            bitmapIndex.index(Todo.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Todo todo) {
+        return new String[]{todo.getTitle(), todo.getContent()};
+    }
+
+    private static IndexAttributes attributes(Todo todo) {
+        return IndexAttributes.create()
+                .category(todo.getCategory())
+                .tags(todo.getTags())
+                .with("status", todo.getStatus())
+                .with("priority", todo.getPriority());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Todo.class, id);
+        bitmapIndex.remove(Todo.class, id);
+    }
+}
@@ -1,73 +1,198 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.TravelPlan;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.TravelPlanRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class TravelPlanService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "studyContent", "checkInStatus");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final TravelPlanRepository travelPlanRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public TravelPlan createTravelPlan(TravelPlan travelPlan) {
-        return travelPlanRepository.save(travelPlan);
+        TravelPlan saved = travelPlanRepository.save(travelPlan);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createTravelPlans(List<TravelPlan> travelPlans) {
+        return bulkOperations.insertAll(travelPlans, this::index);
     }
 
     @Transactional
     public void deleteTravelPlan(Long id) {
         travelPlanRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteTravelPlans(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(TravelPlan.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public TravelPlan updateTravelPlan(Long id, TravelPlan travelPlan) {
+    public int deleteTravelPlans(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteTravelPlans(bulkOperations.findIds(TravelPlan.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateTravelPlans(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(TravelPlan.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(TravelPlan.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public TravelPlan updateTravelPlan(Long id, Map<String, Object> travelPlan) {
         TravelPlan existing = travelPlanRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(travelPlan.getTitle());
-            existing.setStudyContent(travelPlan.getStudyContent());
-            existing.setStudyDuration(travelPlan.getStudyDuration());
-            existing.setProgress(travelPlan.getProgress());
-            existing.setCheckInStatus(travelPlan.getCheckInStatus());
-            existing.setCategory(travelPlan.getCategory());
-            existing.setTags(travelPlan.getTags());
-            return travelPlanRepository.save(existing);
+            String title = existing.getTitle();
+            String checkInStatus = existing.getCheckInStatus();
+            mergePatcher.update(existing, travelPlan);
+            TravelPlan saved = travelPlanRepository.save(existing);
+            reindex(saved, !Objects.equals(title, saved.getTitle())
+                    || !Objects.equals(checkInStatus, saved.getCheckInStatus())
+                    || travelPlan.containsKey("studyContent"));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public TravelPlan patchTravelPlan(Long id, Map<String, Object> patch) {
+        TravelPlan existingTravelPlan = travelPlanRepository.findById(id).orElse(null);
+        if (existingTravelPlan != null) {
+            String title = existingTravelPlan.getTitle();
+            String checkInStatus = existingTravelPlan.getCheckInStatus();
+            mergePatcher.apply(existingTravelPlan, patch);
+            TravelPlan saved = travelPlanRepository.save(existingTravelPlan);
+            reindex(saved, !Objects.equals(title, saved.getTitle())
+                    || !Objects.equals(checkInStatus, saved.getCheckInStatus())
+                    || patch.containsKey("studyContent"));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<TravelPlan> fetchTravelPlans(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<TravelPlan> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return travelPlanRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchTravelPlans相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchTravelPlanSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<TravelPlan> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(TravelPlan.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchTravelPlans相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<TravelPlan> fetchTravelPlans(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<TravelPlan> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchTravelPlanSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<TravelPlan> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(TravelPlan.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<TravelPlan> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(TravelPlan.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate studyContentLike = cb.like(root.get("studyContent"), "%" + searchText + "%");
                 Predicate checkInStatusLike = cb.like(root.get("checkInStatus"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, studyContentLike, checkInStatusLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return travelPlanRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -79,4 +204,51 @@ public class TravelPlanService {
     public List<TravelPlan> findAllTravelPlans() {
         return travelPlanRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllTravelPlans(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(TravelPlan.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(TravelPlan.class, this::index);
+    }
+
+    private void index(TravelPlan travelPlan) {
+        searchIndex.index(TravelPlan.class, travelPlan.getId(), text(travelPlan));
+        bitmapIndex.index(TravelPlan.class, travelPlan.getId(), attributes(travelPlan));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 标题、学习内容和打卡状态都没有修改时只更新位图索引，不读取延迟加载的学习内容；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(TravelPlan travelPlan, boolean textChanged) {
+        Long id = travelPlan.getId();
+        String[] text = textChanged ? text(travelPlan) : null;
+        IndexAttributes attributes = attributes(travelPlan);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(TravelPlan.class, id, text);
+            }
+            bitmapIndex.index(TravelPlan.class, id, attributes);
+        });
+    }
+
+    private static String[] text(TravelPlan travelPlan) {
+        return new String[]{travelPlan.getTitle(), travelPlan.getStudyContent(), travelPlan.getCheckInStatus()};
+    }
+
+    private static IndexAttributes attributes(TravelPlan travelPlan) {
+        return IndexAttributes.create()
+                .category(travelPlan.getCategory())
+                .tags(travelPlan.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(TravelPlan.class, id);
+        bitmapIndex.remove(TravelPlan.class, id);
+    }
 }
@@ -1,73 +1,192 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Video;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.VideoRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class VideoService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "resolution", "source");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final VideoRepository videoRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Video createVideo(Video video) {
-        return videoRepository.save(video);
+        Video saved = videoRepository.save(video);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createVideos(List<Video> videos) {
+        return bulkOperations.insertAll(videos, this::index);
     }
 
     @Transactional
     public void deleteVideo(Long id) {
         videoRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteVideos(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Video.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public Video updateVideo(Long id, Video video) {
+    public int deleteVideos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteVideos(bulkOperations.findIds(Video.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateVideos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(Video.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(Video.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Video updateVideo(Long id, Map<String, Object> video) {
         Video existing = videoRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(video.getTitle());
-            existing.setDuration(video.getDuration());
-            existing.setResolution(video.getResolution());
-            existing.setSource(video.getSource());
-            existing.setThumbnailUrl(video.getThumbnailUrl());
-            existing.setCategory(video.getCategory());
-            existing.setTags(video.getTags());
-            return videoRepository.save(existing);
+            String[] text = text(existing);
+            mergePatcher.update(existing, video);
+            Video saved = videoRepository.save(existing);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public Video patchVideo(Long id, Map<String, Object> patch) {
+        Video existingVideo = videoRepository.findById(id).orElse(null);
+        if (existingVideo != null) {
+            String[] text = text(existingVideo);
+            mergePatcher.apply(existingVideo, patch);
+            Video saved = videoRepository.save(existingVideo);
+            reindex(saved, !Arrays.equals(text, text(saved)));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Video> fetchVideos(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Video> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return videoRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchVideos相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchVideoSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Video> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Video.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchVideos相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<Video> fetchVideos(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<Video> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchVideoSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<Video> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(Video.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Video> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(Video.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate resolutionLike = cb.like(root.get("resolution"), "%" + searchText + "%");
                 Predicate sourceLike = cb.like(root.get("source"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, resolutionLike, sourceLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return videoRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -79,4 +198,51 @@ public class VideoService {
     public List<Video> findAllVideos() {
         return videoRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllVideos(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Video.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Video.class, this::index);
+    }
+
+    private void index(Video video) {
+        searchIndex.index(Video.class, video.getId(), text(video));
+        bitmapIndex.index(Video.class, video.getId(), attributes(video));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 文本字段没有修改时只更新位图索引，不重新分词；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Video video, boolean textChanged) {
+        Long id = video.getId();
+        String[] text = textChanged ? text(video) : null;
+        IndexAttributes attributes = attributes(video);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Video.class, id, text);
+            }
+            bitmapIndex.index(Video.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Video video) {
+        return new String[]{video.getTitle(), video.getResolution(), video.getSource()};
+    }
+
+    private static IndexAttributes attributes(Video video) {
+        return IndexAttributes.create()
+                .category(video.getCategory())
+                .tags(video.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Video.class, id);
+        bitmapIndex.remove(Video.class, id);
+    }
 }
@@ -1,71 +1,198 @@
 package com.example.info.service;
 
+import com.example.info.common.CursorSlice;
+import com.example.info.common.Transactions;
+import com.example.info.dto.InfoSummaryDTO;
 import com.example.info.entity.Website;
+import com.example.info.repository.InfoSpecifications;
 import com.example.info.repository.WebsiteRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.snapshot.SnapshotRestoredEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class WebsiteService {
+    // 进入全文索引的字段，顺序与text()一致，批量修改其中任意一个时才重建全文索引
+    private static final List<String> TEXT_FIELDS = List.of("title", "url", "description");
+    // 进入位图索引的基本类型字段，批量修改时只替换这些属性
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of();
+
     private final WebsiteRepository websiteRepository;
+    private final SearchIndex searchIndex;
+    private final BitmapIndex bitmapIndex;
+    private final IndexRebuilder indexRebuilder;
+    private final BulkOperations bulkOperations;
+    private final StreamingExport streamingExport;
+    private final MergePatcher mergePatcher;
+    private final InfoSummaries infoSummaries;
 
     @Transactional
     public Website createWebsite(Website website) {
-        return websiteRepository.save(website);
+        Website saved = websiteRepository.save(website);
+        Transactions.afterCommit(() -> index(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Long> createWebsites(List<Website> websites) {
+        return bulkOperations.insertAll(websites, this::index);
     }
 
     @Transactional
     public void deleteWebsite(Long id) {
         websiteRepository.deleteById(id);
+        Transactions.afterCommit(() -> unindex(id));
+    }
+
+    @Transactional
+    public int deleteWebsites(List<Long> ids) {
+        int deleted = bulkOperations.deleteAll(Website.class, ids);
+        Transactions.afterCommit(() -> ids.forEach(this::unindex));
+        return deleted;
     }
 
     @Transactional
-    public Website updateWebsite(Long id, Website website) {
+    public int deleteWebsites(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        return deleteWebsites(bulkOperations.findIds(Website.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags)));
+    }
+
+    @Transactional
+    public int updateWebsites(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Map<String, Object> changes) {
+        bulkOperations.requireFilter(searchText, categoryId, tagIds);
+        List<Long> ids = bulkOperations.findIds(Website.class, buildSpecification(searchText, categoryId, tagIds, matchAllTags));
+        return bulkOperations.updateAll(Website.class, ids, changes, TEXT_FIELDS, ATTRIBUTE_FIELDS);
+    }
+
+    @Transactional
+    public Website updateWebsite(Long id, Map<String, Object> website) {
         Website existing = websiteRepository.findById(id).orElse(null);
         if (existing != null) {
-            existing.setTitle(website.getTitle());
-            existing.setUrl(website.getUrl());
-            existing.setDescription(website.getDescription());
-            existing.setCategory(website.getCategory());
-            existing.setTags(website.getTags());
-            return websiteRepository.save(existing);
+            String title = existing.getTitle();
+            String url = existing.getUrl();
+            mergePatcher.update(existing, website);
+            Website saved = websiteRepository.save(existing);
+            reindex(saved, !Objects.equals(title, saved.getTitle())
+                    || !Objects.equals(url, saved.getUrl())
+                    || website.containsKey("description"));
+            return saved;
         }
         return null;
     }
 
+    @Transactional
+    public Website patchWebsite(Long id, Map<String, Object> patch) {
+        Website existingWebsite = websiteRepository.findById(id).orElse(null);
+        if (existingWebsite != null) {
+            String title = existingWebsite.getTitle();
+            String url = existingWebsite.getUrl();
+            mergePatcher.apply(existingWebsite, patch);
+            Website saved = websiteRepository.save(existingWebsite);
+            reindex(saved, !Objects.equals(title, saved.getTitle())
+                    || !Objects.equals(url, saved.getUrl())
+                    || patch.containsKey("description"));
+            return saved;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Website> fetchWebsites(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Website> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return websiteRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 分页查询列表摘要，过滤条件与fetchWebsites相同，不读取正文等大字段
+     */
+    @Transactional(readOnly = true)
+    public Page<InfoSummaryDTO> fetchWebsiteSummaries(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Pageable pageable) {
+        Specification<Website> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return Page.empty(pageable);
+        }
+        return infoSummaries.fetch(Website.class, spec, pageable);
+    }
+
+    /**
+     * 游标分页查询列表摘要，过滤条件与fetchWebsites相同，不执行COUNT查询，不读取正文等大字段
+     */
     @Transactional(readOnly = true)
-    public Page<Website> fetchWebsites(String searchText, Long categoryId, Long tagId, Pageable pageable) {
-        Specification<Website> spec = (root, query, cb) -> {
+    public CursorSlice<InfoSummaryDTO> fetchWebsiteSummariesAfter(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags, Sort sort, String after, int size) {
+        Specification<Website> spec = buildSpecification(searchText, categoryId, tagIds, matchAllTags);
+        if (spec == null) {
+            return CursorSlice.empty(size);
+        }
+        return infoSummaries.fetchAfter(Website.class, spec, sort, after, size);
+    }
+
+    /**
+     * 构建查询条件
+     * 先通过全文索引和位图索引解析出候选ID，索引未就绪的部分回退到SQL条件；
+     * 索引已确定没有任何匹配时返回null
+     */
+    private Specification<Website> buildSpecification(String searchText, Long categoryId, List<Long> tagIds, boolean matchAllTags) {
+        Long category = categoryId != null && categoryId != 0 ? categoryId : null;
+        IndexQuery indexQuery = IndexQuery.of(Website.class, searchIndex, bitmapIndex)
+                .text(searchText)
+                .eq(IndexAttributes.CATEGORY, category)
+                .in(IndexAttributes.TAG, tagIds, matchAllTags)
+                .resolve();
+        if (indexQuery.isEmptyResult()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (searchText != null && !searchText.isEmpty()) {
+            if (indexQuery.ids() != null) {
+                predicates.add(root.get("id").in(indexQuery.ids()));
+            }
+
+            if (!indexQuery.textResolved()) {
                 Predicate titleLike = cb.like(root.get("title"), "%" + searchText + "%");
                 Predicate urlLike = cb.like(root.get("url"), "%" + searchText + "%");
                 Predicate descriptionLike = cb.like(root.get("description"), "%" + searchText + "%");
                 predicates.add(cb.or(titleLike, urlLike, descriptionLike));
             }
 
-            if (categoryId != null && categoryId != 0) {
-                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
-            }
+            if (!indexQuery.filtersResolved()) {
+                if (category != null) {
+                    predicates.add(cb.equal(root.get("category").get("id"), category));
+                }
 
-            if (tagId != null && tagId != 0) {
-                predicates.add(cb.equal(root.get("tags").get("id"), tagId));
+                if (tagIds != null && !tagIds.isEmpty()) {
+                    predicates.add(InfoSpecifications.hasTags(root, query, cb, tagIds, matchAllTags));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return websiteRepository.findAll(spec, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -77,4 +204,51 @@ public class WebsiteService {
     public List<Website> findAllWebsites() {
         return websiteRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public void streamAllWebsites(OutputStream out, boolean ndjson) throws IOException {
+        streamingExport.writeAll(Website.class, out, ndjson);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void rebuildIndexes() {
+        indexRebuilder.rebuild(Website.class, this::index);
+    }
+
+    private void index(Website website) {
+        searchIndex.index(Website.class, website.getId(), text(website));
+        bitmapIndex.index(Website.class, website.getId(), attributes(website));
+    }
+
+    /**
+     * 修改记录后，在事务提交后更新索引
+     * 标题、网址和描述都没有修改时只更新位图索引，不读取延迟加载的描述；
+     * 索引内容在事务内取出，提交后不再访问实体
+     */
+    private void reindex(Website website, boolean textChanged) {
+        Long id = website.getId();
+        String[] text = textChanged ? text(website) : null;
+        IndexAttributes attributes = attributes(website);
+        Transactions.afterCommit(() -> {
+            if (text != null) {
+                searchIndex.index(Website.class, id, text);
+            }
+            bitmapIndex.index(Website.class, id, attributes);
+        });
+    }
+
+    private static String[] text(Website website) {
+        return new String[]{website.getTitle(), website.getUrl(), website.getDescription()};
+    }
+
+    private static IndexAttributes attributes(Website website) {
+        return IndexAttributes.create()
+                .category(website.getCategory())
+                .tags(website.getTags());
+    }
+
+    private void unindex(Long id) {
+        searchIndex.remove(Website.class, id);
+        bitmapIndex.remove(Website.class, id);
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.info.snapshot;
+
+import com.example.info.exception.BusinessException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 快照恢复期间阻止修改请求
+ * 每个修改请求（POST/PUT/PATCH/DELETE）在处理期间持有读锁，恢复时持有写锁：
+ * 恢复先等待正在执行的修改请求结束，恢复期间到达的修改请求直接拒绝，查询请求不受影响。
+ * 使用公平锁，等待中的恢复不会被源源不断的新修改请求饿死
+ */
+@Component
+public class RestoreGate implements AsyncHandlerInterceptor {
+
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    // 标记本请求持有读锁，只释放自己取得的锁
+    private static final String HOLDING = RestoreGate.class.getName() + ".HOLDING";
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        if (!MUTATING_METHODS.contains(request.getMethod()) || request.getAttribute(HOLDING) != null) {
+            return true;
+        }
+        // 超时为0的tryLock遵守公平性，有恢复在等待或进行时立即失败
+        if (!lock.readLock().tryLock(0, TimeUnit.MILLISECONDS)) {
+            throw new BusinessException(503, "正在从快照恢复数据，暂不接受修改，请稍后再试");
+        }
+        request.setAttribute(HOLDING, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步处理时锁在请求线程上取得，必须在同一线程释放
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(HOLDING) != null) {
+            request.removeAttribute(HOLDING);
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 开始恢复：等待正在执行的修改请求结束，之后拒绝新的修改请求
+     * @param timeoutMillis 最长等待时间
+     */
+    void close(long timeoutMillis) {
+        try {
+            if (!lock.writeLock().tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new BusinessException(503, "仍有修改请求在执行，请稍后再试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(500, "恢复被中断");
+        }
+    }
+
+    /**
+     * 恢复结束（无论成功与否），重新接受修改请求；必须由调用close的线程调用
+     */
+    void open() {
+        lock.writeLock().unlock();
+    }
+}
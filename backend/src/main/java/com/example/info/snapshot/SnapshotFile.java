@@ -0,0 +1,167 @@
+package com.example.info.snapshot;
+
+import com.example.info.exception.BusinessException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 快照文件格式
+ * <pre>
+ * 文件头: "INFOSNAP"(8字节) | 版本(int) | 创建时间(long, epoch毫秒)
+ * 数据帧: 表名长度(int) | 表名(UTF-8) | 原始长度(int) | 压缩长度(int) | 原始数据CRC32(long) | Deflate压缩数据
+ * 结束帧: 表名为空，原始数据为 帧数(long) | 行数(long)
+ * </pre>
+ * 每个数据帧包含一张表的一段行数据，可以独立解压和校验
+ */
+final class SnapshotFile {
+
+    private static final byte[] MAGIC = "INFOSNAP".getBytes(StandardCharsets.US_ASCII);
+
+    static final int VERSION = 1;
+
+    // 结束帧的表名
+    static final String END = "";
+
+    private SnapshotFile() {
+    }
+
+    static void writeHeader(FileChannel channel, long createdTime) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + Integer.BYTES + Long.BYTES);
+        buffer.put(MAGIC).putInt(VERSION).putLong(createdTime).flip();
+        writeFully(channel, buffer);
+    }
+
+    /**
+     * 读取并校验文件头
+     * @return 快照创建时间
+     */
+    static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = readFully(channel, MAGIC.length + Integer.BYTES + Long.BYTES);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new BusinessException("不是有效的快照文件");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new BusinessException("不支持的快照版本: " + version);
+        }
+        return buffer.getLong();
+    }
+
+    static void writeFrame(FileChannel channel, String table, byte[] raw) throws IOException {
+        byte[] name = table.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = compress(raw);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 3 + Long.BYTES + name.length);
+        header.putInt(name.length).put(name).putInt(raw.length).putInt(compressed.length).putLong(crc.getValue()).flip();
+        writeFully(channel, header);
+        writeFully(channel, ByteBuffer.wrap(compressed));
+    }
+
+    /**
+     * 读取下一帧并校验CRC
+     * @return 下一帧；已到文件末尾时返回null
+     */
+    static Frame readFrame(FileChannel channel) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        if (channel.read(lengthBuffer) <= 0) {
+            return null;
+        }
+        while (lengthBuffer.hasRemaining()) {
+            if (channel.read(lengthBuffer) < 0) {
+                throw new EOFException("快照文件不完整");
+            }
+        }
+        lengthBuffer.flip();
+        byte[] name = new byte[lengthBuffer.getInt()];
+        readFully(channel, name.length).get(name);
+
+        ByteBuffer header = readFully(channel, Integer.BYTES * 2 + Long.BYTES);
+        int rawLength = header.getInt();
+        int compressedLength = header.getInt();
+        long checksum = header.getLong();
+        byte[] compressed = new byte[compressedLength];
+        readFully(channel, compressedLength).get(compressed);
+
+        String table = new String(name, StandardCharsets.UTF_8);
+        byte[] raw = decompress(compressed, rawLength);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if (crc.getValue() != checksum) {
+            throw new BusinessException("快照文件校验失败，表" + table + "的数据已损坏");
+        }
+        return new Frame(table, raw);
+    }
+
+    record Frame(String table, byte[] raw) {
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != rawLength) {
+                throw new BusinessException("快照文件数据长度不匹配");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new BusinessException("快照文件数据已损坏: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("快照文件不完整");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.info.snapshot;
+
+/**
+ * 从快照恢复数据后发布，内存中的索引、计数器等据此从数据库重建
+ */
+public record SnapshotRestoredEvent(String snapshotName) {
+}
@@ -0,0 +1,417 @@
+package com.example.info.snapshot;
+
+import com.example.info.dto.SnapshotInfoDTO;
+import com.example.info.exception.BusinessException;
+import com.example.info.stats.ArticleViewCounter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.TableStructure;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 全量数据快照的备份、校验与恢复
+ * 备份在一个一致性读事务中按表流式读取全部行，分段编码、压缩后通过FileChannel写入快照文件；
+ * 恢复先完整校验文件，再清空各表，把数据帧分发到多个线程并行批量插入；
+ * 恢复期间拒绝修改请求并暂停浏览量写回。
+ * 表清单来自JPA元模型：全部实体表、多对多中间表和主键序列表
+ */
+@Slf4j
+@Service
+public class SnapshotService {
+
+    private static final String SUFFIX = ".snap";
+
+    // 每个数据帧最多包含的行数和原始字节数
+    private static final int FRAME_ROWS = 5000;
+    private static final int FRAME_BYTES = 4 * 1024 * 1024;
+
+    // 每条批量插入语句的行数
+    private static final int INSERT_BATCH = 1000;
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path directory;
+    private final int restoreThreads;
+    private final long drainTimeoutMillis;
+    private final RestoreGate restoreGate;
+    private final ArticleViewCounter articleViewCounter;
+
+    // 恢复会清空并重写全部表，多个恢复任务交错执行会得到混合的数据
+    private final Lock restoreLock = new ReentrantLock();
+
+    public SnapshotService(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${snapshot.dir:snapshots}") String directory,
+                           @Value("${snapshot.restore-threads:4}") int restoreThreads,
+                           @Value("${snapshot.restore-drain-timeout-ms:30000}") long drainTimeoutMillis,
+                           RestoreGate restoreGate, ArticleViewCounter articleViewCounter) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.directory = Paths.get(directory);
+        this.restoreThreads = restoreThreads;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.restoreGate = restoreGate;
+        this.articleViewCounter = articleViewCounter;
+    }
+
+    /**
+     * 按配置的cron表达式定期备份，默认不启用
+     */
+    @Scheduled(cron = "${snapshot.cron:-}")
+    public void scheduledBackup() {
+        SnapshotInfoDTO info = backup();
+        log.info("Snapshot {} written: {} tables, {} rows, {} bytes in {} ms",
+                info.getName(), info.getTables(), info.getRows(), info.getSizeBytes(), info.getElapsedMillis());
+    }
+
+    /**
+     * 备份全部表到新的快照文件
+     */
+    public SnapshotInfoDTO backup() {
+        long start = System.currentTimeMillis();
+        String name = "snapshot-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(start)) + SUFFIX;
+        Path target = directory.resolve(name);
+        Path temp = directory.resolve(name + ".tmp");
+        List<String> tables = tables();
+        long rows = 0;
+        long frames = 0;
+
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Connection connection = dataSource.getConnection()) {
+                SnapshotFile.writeHeader(channel, start);
+                // 所有表在同一个一致性读视图中读取
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT");
+                }
+                for (String table : tables) {
+                    long[] written = backupTable(connection, channel, table);
+                    rows += written[0];
+                    frames += written[1];
+                }
+                connection.commit();
+
+                SnapshotFile.writeFrame(channel, SnapshotFile.END,
+                        ByteBuffer.allocate(Long.BYTES * 2).putLong(frames).putLong(rows).array());
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new SnapshotInfoDTO(name, Files.size(target), new Date(start), tables.size(), rows,
+                    System.currentTimeMillis() - start);
+        } catch (IOException | SQLException e) {
+            deleteQuietly(temp);
+            throw new BusinessException(500, "备份失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式读取一张表，每满一个数据帧写入一次
+     * @return {行数, 帧数}
+     */
+    private long[] backupTable(Connection connection, FileChannel channel, String table) throws SQLException, IOException {
+        long rows = 0;
+        long frames = 0;
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL驱动在fetchSize为Integer.MIN_VALUE时逐行流式返回结果
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet resultSet = statement.executeQuery("SELECT * FROM `" + table + "`")) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columns.add(metaData.getColumnName(i));
+                }
+                TableChunk.Writer writer = new TableChunk.Writer(columns);
+                while (resultSet.next()) {
+                    Object[] values = new Object[columns.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = resultSet.getObject(i + 1);
+                    }
+                    writer.writeRow(values);
+                    rows++;
+                    if (writer.rowCount() >= FRAME_ROWS || writer.byteSize() >= FRAME_BYTES) {
+                        SnapshotFile.writeFrame(channel, table, writer.finish());
+                        frames++;
+                        writer = new TableChunk.Writer(columns);
+                    }
+                }
+                // 空表也写一帧，恢复时据此清空该表
+                if (writer.rowCount() > 0 || rows == 0) {
+                    SnapshotFile.writeFrame(channel, table, writer.finish());
+                    frames++;
+                }
+            }
+        }
+        return new long[]{rows, frames};
+    }
+
+    /**
+     * 完整读取快照文件并校验每一帧的CRC和结束帧中的统计
+     */
+    public SnapshotInfoDTO verify(String name) {
+        long start = System.currentTimeMillis();
+        Path file = resolve(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long createdTime = SnapshotFile.readHeader(channel);
+            Set<String> tables = new HashSet<>();
+            long rows = 0;
+            long frames = 0;
+            SnapshotFile.Frame frame;
+            while ((frame = SnapshotFile.readFrame(channel)) != null) {
+                if (SnapshotFile.END.equals(frame.table())) {
+                    ByteBuffer summary = ByteBuffer.wrap(frame.raw());
+                    if (summary.getLong() != frames || summary.getLong() != rows) {
+                        throw new BusinessException("快照文件校验失败，帧数或行数不匹配");
+                    }
+                    return new SnapshotInfoDTO(name, Files.size(file), new Date(createdTime), tables.size(), rows,
+                            System.currentTimeMillis() - start);
+                }
+                tables.add(frame.table());
+                rows += TableChunk.read(frame.raw()).rows.size();
+                frames++;
+            }
+            throw new BusinessException("快照文件不完整，缺少结束帧");
+        } catch (IOException e) {
+            throw new BusinessException("快照文件读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从快照恢复全部表
+     * 恢复前先完整校验；快照中的表被清空后重新写入，数据帧由多个线程并行批量插入。
+     * 恢复通过JDBC直接写表，不经过Hibernate；完成后发布SnapshotRestoredEvent，
+     * 由IdSequenceMigration重新对齐主键序列并丢弃内存中已预分配的主键段，其他组件重建内存数据。
+     * 同一时间只允许一个恢复任务，并发的恢复请求直接拒绝；
+     * 开始前等待正在执行的修改请求结束，恢复期间拒绝新的修改请求，并写入、暂停浏览量缓冲。
+     * 各表逐张清空、各帧分别提交，不是一个整体事务：中途失败时数据库处于部分恢复的不一致状态，
+     * 必须重新执行恢复（可以是同一个快照）
+     */
+    public SnapshotInfoDTO restore(String name) {
+        if (!restoreLock.tryLock()) {
+            throw new BusinessException(409, "已有快照恢复正在进行，请稍后再试");
+        }
+        try {
+            // 校验只读取文件，在阻止修改请求之前完成
+            verify(name);
+            restoreGate.close(drainTimeoutMillis);
+            try {
+                articleViewCounter.pause();
+                try {
+                    return restoreFrom(name);
+                } finally {
+                    articleViewCounter.resume();
+                }
+            } finally {
+                restoreGate.open();
+            }
+        } finally {
+            restoreLock.unlock();
+        }
+    }
+
+    private SnapshotInfoDTO restoreFrom(String name) {
+        long start = System.currentTimeMillis();
+        Path file = resolve(name);
+        Set<String> known = new HashSet<>(tables());
+        AtomicLong rows = new AtomicLong();
+        Set<String> restoredTables = ConcurrentHashMap.newKeySet();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(restoreThreads, restoreThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(restoreThreads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> futures = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SnapshotFile.readHeader(channel);
+            SnapshotFile.Frame frame;
+            while ((frame = SnapshotFile.readFrame(channel)) != null && !SnapshotFile.END.equals(frame.table())) {
+                String table = frame.table();
+                if (!known.contains(table)) {
+                    log.warn("Skipping table {} which is not part of the current schema", table);
+                    continue;
+                }
+                // 第一次遇到某张表时先清空它
+                if (restoredTables.add(table)) {
+                    truncate(table);
+                }
+                byte[] raw = frame.raw();
+                // 队列已满时由读取线程自己执行插入，读取速度与写入速度保持一致
+                futures.add(executor.submit(() -> rows.addAndGet(insert(table, TableChunk.read(raw)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (IOException e) {
+            throw new BusinessException("快照文件读取失败: " + e.getMessage());
+        } catch (ExecutionException e) {
+            throw new BusinessException(500, "恢复失败: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(500, "恢复被中断");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        eventPublisher.publishEvent(new SnapshotRestoredEvent(name));
+        try {
+            return new SnapshotInfoDTO(name, Files.size(file), new Date(start), restoredTables.size(), rows.get(),
+                    System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 列出快照目录中的全部快照，按名称（即创建时间）倒序
+     */
+    public List<SnapshotInfoDTO> list() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .map(file -> {
+                        try {
+                            return new SnapshotInfoDTO(file.getFileName().toString(), Files.size(file),
+                                    new Date(Files.getLastModifiedTime(file).toMillis()), 0, 0, 0);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        } catch (IOException e) {
+            throw new BusinessException("读取快照目录失败: " + e.getMessage());
+        }
+    }
+
+    private void truncate(String table) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            statement.execute("TRUNCATE TABLE `" + table + "`");
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+        } catch (SQLException e) {
+            throw new BusinessException(500, "清空表" + table + "失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在独立连接上批量插入一个数据帧，整帧一个事务
+     */
+    private long insert(String table, TableChunk chunk) throws SQLException {
+        if (chunk.rows.isEmpty()) {
+            return 0;
+        }
+        StringJoiner columns = new StringJoiner("`, `", "`", "`");
+        StringJoiner placeholders = new StringJoiner(", ");
+        chunk.columns.forEach(column -> {
+            columns.add(column);
+            placeholders.add("?");
+        });
+        String sql = "INSERT INTO `" + table + "` (" + columns + ") VALUES (" + placeholders + ")";
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            try (Statement statement = connection.createStatement()) {
+                // 各帧并行写入，先后顺序不确定，写入期间不检查外键
+                statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (Object[] row : chunk.rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        statement.setObject(i + 1, row[i]);
+                    }
+                    statement.addBatch();
+                    if (++pending >= INSERT_BATCH) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+                }
+            }
+        }
+        return chunk.rows.size();
+    }
+
+    /**
+     * 需要备份的表：实体表、多对多中间表、主键序列表
+     */
+    private List<String> tables() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Set<String> tables = new LinkedHashSet<>();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister instanceof AbstractEntityPersister entityPersister) {
+                tables.add(entityPersister.getTableName());
+            }
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                    && generator.getDatabaseStructure() instanceof TableStructure structure) {
+                tables.add(structure.getPhysicalName().render());
+            }
+        });
+        sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(persister -> {
+            if (persister instanceof AbstractCollectionPersister collectionPersister && collectionPersister.isManyToMany()) {
+                tables.add(collectionPersister.getTableName());
+            }
+        });
+        return new ArrayList<>(tables);
+    }
+
+    /**
+     * 只允许访问快照目录下的快照文件
+     */
+    private Path resolve(String name) {
+        if (name == null || !name.matches("[A-Za-z0-9._-]+") || !name.endsWith(SUFFIX)) {
+            throw new BusinessException("无效的快照名称: " + name);
+        }
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new BusinessException(404, "快照不存在: " + name);
+        }
+        return file;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.info.snapshot;
+
+import com.example.info.exception.BusinessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一张表的一段行数据，对应快照文件中一个数据帧的原始内容
+ * <pre>
+ * 列数(int) | 列名... | 行... | 结束标记(0)
+ * 每行以1开头，每个值为 类型标记(byte) | 值
+ * </pre>
+ */
+final class TableChunk {
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte STRING = 3;
+    private static final byte BYTES = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte DATETIME = 7;
+    private static final byte DATE = 8;
+    private static final byte TIME = 9;
+
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+
+    final List<String> columns;
+
+    final List<Object[]> rows;
+
+    private TableChunk(List<String> columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * 解码一个数据帧
+     */
+    static TableChunk read(byte[] raw) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            int columnCount = in.readInt();
+            List<String> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(readString(in));
+            }
+            List<Object[]> rows = new ArrayList<>();
+            while (in.readByte() == ROW) {
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = readValue(in);
+                }
+                rows.add(row);
+            }
+            return new TableChunk(columns, rows);
+        } catch (IOException e) {
+            throw new BusinessException("快照数据帧格式错误: " + e.getMessage());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case NULL -> null;
+            case LONG -> in.readLong();
+            case DOUBLE -> in.readDouble();
+            case STRING -> readString(in);
+            case BYTES -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield bytes;
+            }
+            case BOOLEAN -> in.readBoolean();
+            case DECIMAL -> new BigDecimal(readString(in));
+            case DATETIME -> LocalDateTime.parse(readString(in));
+            case DATE -> LocalDate.parse(readString(in));
+            case TIME -> LocalTime.parse(readString(in));
+            default -> throw new IOException("未知的值类型: " + type);
+        };
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 逐行编码一段数据
+     */
+    static class Writer {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private int rowCount;
+
+        Writer(List<String> columns) {
+            try {
+                out.writeInt(columns.size());
+                for (String column : columns) {
+                    writeString(column);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeRow(Object[] values) {
+            try {
+                out.writeByte(ROW);
+                for (Object value : values) {
+                    writeValue(value);
+                }
+                rowCount++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int rowCount() {
+            return rowCount;
+        }
+
+        int byteSize() {
+            return buffer.size();
+        }
+
+        byte[] finish() {
+            try {
+                out.writeByte(END);
+                out.flush();
+                return buffer.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(LONG);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof String text) {
+                out.writeByte(STRING);
+                writeString(text);
+            } else if (value instanceof byte[] bytes) {
+                out.writeByte(BYTES);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof Boolean flag) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(flag);
+            } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+                out.writeByte(DECIMAL);
+                writeString(value.toString());
+            } else if (value instanceof LocalDateTime || value instanceof java.sql.Timestamp) {
+                out.writeByte(DATETIME);
+                writeString((value instanceof java.sql.Timestamp timestamp ? timestamp.toLocalDateTime() : value).toString());
+            } else if (value instanceof LocalDate || value instanceof java.sql.Date) {
+                out.writeByte(DATE);
+                writeString((value instanceof java.sql.Date date ? date.toLocalDate() : value).toString());
+            } else if (value instanceof LocalTime || value instanceof java.sql.Time) {
+                out.writeByte(TIME);
+                writeString((value instanceof java.sql.Time time ? time.toLocalTime() : value).toString());
+            } else {
+                throw new BusinessException("快照不支持的列类型: " + value.getClass().getName());
+            }
+        }
+
+        private void writeString(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
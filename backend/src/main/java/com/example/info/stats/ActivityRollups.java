@@ -0,0 +1,227 @@
+package com.example.info.stats;
+
+import com.example.info.dto.ActivityBucketDTO;
+import com.example.info.entity.*;
+import com.example.info.exception.BusinessException;
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按天预聚合的活动统计
+ * 每个Info类型维护 日期 -> (创建数, 修改数)，修改数按记录最后一次修改时间（updatedTime）统计；
+ * 写入时由实体生命周期回调增量维护，并定期从数据库按天分组重建，纠正绕过回调的写入造成的偏差。
+ * 周、月粒度在查询时由天粒度汇总得到
+ */
+@Slf4j
+@Component
+public class ActivityRollups {
+
+    // 单次查询允许的最大天数
+    private static final long MAX_DAYS = 3660;
+
+    private final Map<Class<?>, String> typeNames = new LinkedHashMap<>();
+
+    private final Map<Class<?>, TypeRollup> rollups = new HashMap<>();
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ActivityRollups() {
+        register(Article.class, "article");
+        register(Todo.class, "todo");
+        register(Diary.class, "diary");
+        register(Memo.class, "memo");
+        register(Expense.class, "expense");
+        register(Video.class, "video");
+        register(Audio.class, "audio");
+        register(Website.class, "website");
+        register(StudyCheckIn.class, "studyCheckIn");
+        register(TravelPlan.class, "travelPlan");
+    }
+
+    private void register(Class<? extends Info> type, String name) {
+        typeNames.put(type, name);
+        rollups.put(type, new TypeRollup());
+    }
+
+    /**
+     * 记录一次创建：创建日和修改日各加1
+     */
+    public void recordCreated(Class<?> type, Date createdTime, Date updatedTime) {
+        TypeRollup rollup = rollups.get(type);
+        if (rollup != null) {
+            rollup.add(toDay(createdTime), 1, 0);
+            rollup.add(toDay(updatedTime), 0, 1);
+        }
+    }
+
+    /**
+     * 记录一次修改：最后修改时间从旧日期移到新日期
+     */
+    public void recordUpdated(Class<?> type, Date previousUpdatedTime, Date updatedTime) {
+        TypeRollup rollup = rollups.get(type);
+        if (rollup != null) {
+            rollup.add(toDay(previousUpdatedTime), 0, -1);
+            rollup.add(toDay(updatedTime), 0, 1);
+        }
+    }
+
+    /**
+     * 记录一次删除：撤销该记录在创建日和修改日的计数
+     */
+    public void recordRemoved(Class<?> type, Date createdTime, Date updatedTime) {
+        TypeRollup rollup = rollups.get(type);
+        if (rollup != null) {
+            rollup.add(toDay(createdTime), -1, 0);
+            rollup.add(toDay(updatedTime), 0, -1);
+        }
+    }
+
+    /**
+     * 查询时间范围内各类型按桶汇总的创建数和修改数
+     * @param from 开始日期（包含）
+     * @param to 结束日期（包含）
+     * @param bucket 汇总粒度：day、week（周一开始）或month
+     * @return 按时间升序排列的桶，没有活动的桶计数为0
+     */
+    public List<ActivityBucketDTO> histogram(LocalDate from, LocalDate to, String bucket) {
+        if (from.isAfter(to)) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BusinessException("查询范围不能超过" + MAX_DAYS + "天");
+        }
+        BucketUnit unit = BucketUnit.parse(bucket);
+
+        // 先生成范围内的全部桶，保证热力图连续
+        TreeMap<LocalDate, ActivityBucketDTO> buckets = new TreeMap<>();
+        for (LocalDate start = unit.align(from); !start.isAfter(to); start = unit.next(start)) {
+            ActivityBucketDTO dto = new ActivityBucketDTO(start, new LinkedHashMap<>(), new LinkedHashMap<>());
+            for (String name : typeNames.values()) {
+                dto.getCreated().put(name, 0L);
+                dto.getUpdated().put(name, 0L);
+            }
+            buckets.put(start, dto);
+        }
+
+        typeNames.forEach((type, name) -> {
+            rollups.get(type).days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).forEach((day, counts) -> {
+                ActivityBucketDTO dto = buckets.get(unit.align(LocalDate.ofEpochDay(day)));
+                dto.getCreated().merge(name, counts.created.sum(), Long::sum);
+                dto.getUpdated().merge(name, counts.updated.sum(), Long::sum);
+            });
+        });
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * 应用启动完成后及之后每隔一段时间，从数据库按天分组重建全部类型的汇总
+     * 重建期间发生的写入可能被重复或遗漏计数，在下一次重建时纠正
+     */
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    @Scheduled(initialDelayString = "${dashboard.activity.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${dashboard.activity.rebuild-interval-ms:3600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        for (Class<?> type : typeNames.keySet()) {
+            try {
+                ConcurrentSkipListMap<Long, DayCounts> days = new ConcurrentSkipListMap<>();
+                for (Object[] row : countByDay(type, "createdTime")) {
+                    days.computeIfAbsent(((LocalDate) row[0]).toEpochDay(), d -> new DayCounts()).created.add((Long) row[1]);
+                }
+                for (Object[] row : countByDay(type, "updatedTime")) {
+                    days.computeIfAbsent(((LocalDate) row[0]).toEpochDay(), d -> new DayCounts()).updated.add((Long) row[1]);
+                }
+                rollups.get(type).days = days;
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild activity rollup for {}", type.getSimpleName(), e);
+            }
+        }
+        log.info("Rebuilt activity rollups for {} types", typeNames.size());
+    }
+
+    private List<Object[]> countByDay(Class<?> type, String property) {
+        String day = "cast(e." + property + " as LocalDate)";
+        return entityManager.createQuery(
+                "select " + day + ", count(e) from " + type.getSimpleName() + " e"
+                        + " where e." + property + " is not null group by " + day, Object[].class)
+                .getResultList();
+    }
+
+    private Long toDay(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private static class TypeRollup {
+        // 重建时整体替换
+        volatile ConcurrentSkipListMap<Long, DayCounts> days = new ConcurrentSkipListMap<>();
+
+        void add(Long day, long created, long updated) {
+            if (day == null) {
+                return;
+            }
+            DayCounts counts = days.computeIfAbsent(day, d -> new DayCounts());
+            counts.created.add(created);
+            counts.updated.add(updated);
+        }
+    }
+
+    private static class DayCounts {
+        final LongAdder created = new LongAdder();
+        final LongAdder updated = new LongAdder();
+    }
+
+    /**
+     * 汇总粒度
+     */
+    private enum BucketUnit {
+        DAY, WEEK, MONTH;
+
+        static BucketUnit parse(String value) {
+            for (BucketUnit unit : values()) {
+                if (unit.name().equalsIgnoreCase(value)) {
+                    return unit;
+                }
+            }
+            throw new BusinessException("不支持的统计粒度: " + value);
+        }
+
+        LocalDate align(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.info.stats;
+
+import com.example.info.entity.Article;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章浏览量的写回缓冲
+ * 每次浏览只累加内存中该文章的LongAdder，由定时任务把增量合并为一批
+ * UPDATE articles SET views = views + ? 语句写入数据库。
+ * 读请求不会获取行锁，进程崩溃时最多丢失一个刷新间隔内的浏览数
+ */
+@Slf4j
+@Component
+public class ArticleViewCounter {
+
+    private static final String FLUSH_SQL = "UPDATE articles SET views = COALESCE(views, 0) + ? WHERE id = ?";
+
+    // 刷新语句影响的查询空间（表名），查询缓存中涉及这些表的结果随之失效
+    private static final String[] QUERY_SPACES = {"articles"};
+
+    // 文章ID -> 尚未写入数据库的浏览数
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // 上一次刷新时移出缓冲的计数器：移出的同时可能有浏览请求已取得它但尚未累加，下一次刷新时再收取一次
+    private final Map<Long, LongAdder> retired = new HashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ModificationWatermarks watermarks;
+
+    // 快照恢复期间暂停写回，避免与清空、重写articles表交错
+    private boolean paused;
+
+    public ArticleViewCounter(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                              ModificationWatermarks watermarks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.watermarks = watermarks;
+    }
+
+    /**
+     * 记录一次浏览
+     */
+    public void record(Long articleId) {
+        LongAdder adder = pending.get(articleId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(articleId, id -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 把缓冲的增量批量写入数据库
+     * 按ID排序后执行，多个实例同时刷新时加锁顺序一致；写入失败的增量放回缓冲，下次重试
+     */
+    @Scheduled(fixedDelayString = "${article.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (paused) {
+            return;
+        }
+        TreeMap<Long, Long> deltas = new TreeMap<>();
+        retired.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                deltas.merge(id, delta, Long::sum);
+            }
+        });
+        retired.clear();
+        pending.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                deltas.merge(id, delta, Long::sum);
+            } else if (pending.remove(id, adder)) {
+                // 一个刷新间隔内没有浏览的文章移出缓冲，控制内存占用；
+                // 计数器保留到下一次刷新，收取移出前后并发累加到其中的浏览数
+                retired.put(id, adder);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> batch.add(new Object[]{delta, id}));
+        try {
+            int[] counts = jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            // 绕过Hibernate的写入不会更新二级缓存，移除这些文章的缓存，热门文章每个刷新间隔最多重新读取一次
+            Cache cache = entityManagerFactory.getCache();
+            deltas.keySet().forEach(id -> cache.evict(Article.class, id));
+            invalidateQueryCache();
+            if (Arrays.stream(counts).anyMatch(count -> count != 0)) {
+                // 浏览量也是列表内容（可按浏览量排序），推进文章的修改水位，条件请求不再返回304
+                watermarks.touch(Article.class);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush views for {} articles, will retry", deltas.size(), e);
+            deltas.forEach((id, delta) -> pending.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+        }
+    }
+
+    /**
+     * 更新articles表的查询空间时间戳，使之前缓存的文章查询结果（如按浏览量排序的列表）失效，
+     * 其他表的查询缓存不受影响
+     */
+    private void invalidateQueryCache() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            sessionFactory.getCache().getTimestampsCache()
+                    .invalidate(QUERY_SPACES, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    /**
+     * 写入已缓冲的浏览数后暂停写回，用于快照恢复前
+     */
+    public synchronized void pause() {
+        flush();
+        paused = true;
+    }
+
+    /**
+     * 恢复写回；暂停期间记录的浏览数针对恢复前的数据，直接丢弃
+     */
+    public synchronized void resume() {
+        pending.clear();
+        retired.clear();
+        paused = false;
+    }
+
+    /**
+     * 应用关闭前写入剩余的增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.info.stats;
+
+import com.example.info.common.Transactions;
+import com.example.info.entity.Info;
+import com.example.info.service.ReferenceDataCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PreUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Date;
+
+/**
+ * 实体生命周期监听器，在事务提交后更新内存中的记录数、活动统计、修改水位和分类标签缓存
+ * 由Hibernate通过Spring容器创建；依赖延迟获取，避免与EntityManagerFactory形成循环依赖
+ */
+public class EntityChangeListener {
+
+    private final ObjectProvider<EntityCounters> counters;
+
+    private final ObjectProvider<ActivityRollups> activityRollups;
+
+    private final ObjectProvider<ModificationWatermarks> watermarks;
+
+    private final ObjectProvider<ReferenceDataCache> referenceDataCache;
+
+    public EntityChangeListener(ObjectProvider<EntityCounters> counters,
+                                ObjectProvider<ActivityRollups> activityRollups,
+                                ObjectProvider<ModificationWatermarks> watermarks,
+                                ObjectProvider<ReferenceDataCache> referenceDataCache) {
+        this.counters = counters;
+        this.activityRollups = activityRollups;
+        this.watermarks = watermarks;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @PostPersist
+    public void afterPersist(Object entity) {
+        Class<?> type = Hibernate.getClass(entity);
+        Transactions.afterCommit(() -> {
+            counters.ifAvailable(c -> c.add(type, 1));
+            watermarks.ifAvailable(w -> w.touch(type));
+            referenceDataCache.ifAvailable(c -> c.saved(entity));
+            if (entity instanceof Info info) {
+                activityRollups.ifAvailable(r -> r.recordCreated(type, info.getCreatedTime(), info.getUpdatedTime()));
+            }
+        });
+    }
+
+    /**
+     * 监听器先于实体自身的@PreUpdate回调执行，此时updatedTime仍是上一次修改的时间
+     */
+    @PreUpdate
+    public void beforeUpdate(Object entity) {
+        Class<?> type = Hibernate.getClass(entity);
+        if (!(entity instanceof Info info)) {
+            Transactions.afterCommit(() -> {
+                watermarks.ifAvailable(w -> w.touch(type));
+                referenceDataCache.ifAvailable(c -> c.saved(entity));
+            });
+            return;
+        }
+        Date previousUpdatedTime = info.getUpdatedTime();
+        Transactions.afterCommit(() -> {
+            activityRollups.ifAvailable(r -> r.recordUpdated(type, previousUpdatedTime, info.getUpdatedTime()));
+            watermarks.ifAvailable(w -> w.touch(type));
+        });
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        Class<?> type = Hibernate.getClass(entity);
+        Transactions.afterCommit(() -> {
+            counters.ifAvailable(c -> c.add(type, -1));
+            watermarks.ifAvailable(w -> w.touch(type));
+            referenceDataCache.ifAvailable(c -> c.removed(entity));
+            if (entity instanceof Info info) {
+                activityRollups.ifAvailable(r -> r.recordRemoved(type, info.getCreatedTime(), info.getUpdatedTime()));
+            }
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.info.stats;
+
+import com.example.info.entity.*;
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 各Info类型的修改水位
+ * 每次提交的新增、修改、删除都会递增对应类型的版本号并记录修改时间，列表接口据此生成ETag和Last-Modified；
+ * 分类和标签嵌在各类型的返回内容中，它们的修改会同时推进所有类型的水位。
+ * 版本号只保存在内存中，ETag带上进程启动时间，重启后客户端缓存全部失效
+ */
+@Component
+public class ModificationWatermarks {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final Map<Class<?>, Watermark> watermarks = new LinkedHashMap<>();
+
+    // 分类和标签的水位
+    private final Watermark reference = new Watermark();
+
+    public ModificationWatermarks() {
+        for (Class<?> type : new Class<?>[]{Article.class, Todo.class, Diary.class, Memo.class, Video.class,
+                Audio.class, Website.class, Expense.class, TravelPlan.class, StudyCheckIn.class}) {
+            watermarks.put(type, new Watermark());
+        }
+    }
+
+    /**
+     * 记录一次已提交的修改
+     */
+    public void touch(Class<?> type) {
+        if (type == Category.class || type == Tag.class) {
+            reference.advance();
+            watermarks.values().forEach(Watermark::advance);
+            return;
+        }
+        Watermark watermark = watermarks.get(type);
+        if (watermark != null) {
+            watermark.advance();
+        }
+    }
+
+    /**
+     * 从快照恢复后所有数据都已改变
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void touchAll() {
+        reference.advance();
+        watermarks.values().forEach(Watermark::advance);
+    }
+
+    /**
+     * 某一类型当前的版本号，分类和标签共用一个版本号
+     */
+    public long version(Class<?> type) {
+        if (type == Category.class || type == Tag.class) {
+            return reference.version.get();
+        }
+        return watermark(type).version.get();
+    }
+
+    /**
+     * 所有类型版本号之和，任何一次修改都会使其增大
+     */
+    public long totalVersion() {
+        long total = reference.version.get();
+        for (Watermark watermark : watermarks.values()) {
+            total += watermark.version.get();
+        }
+        return total;
+    }
+
+    /**
+     * 某一类型列表内容的弱ETag
+     */
+    public String listETag(Class<?> type) {
+        return "W/\"" + epoch + "-" + watermark(type).version.get() + "\"";
+    }
+
+    /**
+     * 某一类型最近一次修改的时间（毫秒）
+     */
+    public long lastModified(Class<?> type) {
+        return watermark(type).lastModified;
+    }
+
+    /**
+     * 单条记录详情的弱ETag：记录自身的修改时间 + 分类和标签的版本号
+     */
+    public String entityETag(long updatedTime) {
+        return "W/\"" + updatedTime + "-" + epoch + "-" + reference.version.get() + "\"";
+    }
+
+    /**
+     * 单条记录详情的修改时间：记录自身与分类、标签修改时间中较晚的一个
+     */
+    public long entityLastModified(long updatedTime) {
+        return Math.max(updatedTime, reference.lastModified);
+    }
+
+    private Watermark watermark(Class<?> type) {
+        Watermark watermark = watermarks.get(type);
+        if (watermark == null) {
+            throw new IllegalArgumentException("Unsupported type: " + type.getName());
+        }
+        return watermark;
+    }
+
+    private class Watermark {
+        final AtomicLong version = new AtomicLong();
+        volatile long lastModified = epoch;
+
+        void advance() {
+            version.incrementAndGet();
+            lastModified = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.info.stats;
+
+import com.example.info.dto.CacheRegionStatsDTO;
+import com.example.info.snapshot.SnapshotRestoredEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hibernate二级缓存的维护和统计
+ * 各区域的命中、未命中、驱逐次数取自Ehcache注册的JCache统计MBean
+ */
+@Slf4j
+@Component
+public class SecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * 快照恢复通过JDBC直接写表，需要清空全部缓存区域
+     * 先于其他监听器执行，避免重建索引时读到恢复前的缓存
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(SnapshotRestoredEvent.class)
+    public void evictAll() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    /**
+     * 各缓存区域的统计，按区域名排序
+     */
+    public List<CacheRegionStatsDTO> stats() {
+        List<CacheRegionStatsDTO> result = new ArrayList<>();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                result.add(new CacheRegionStatsDTO(
+                        region(name),
+                        (Long) server.getAttribute(name, "CacheHits"),
+                        (Long) server.getAttribute(name, "CacheMisses"),
+                        (Long) server.getAttribute(name, "CachePuts"),
+                        (Long) server.getAttribute(name, "CacheRemovals"),
+                        (Long) server.getAttribute(name, "CacheEvictions")));
+            }
+        } catch (JMException e) {
+            log.warn("Failed to read cache statistics", e);
+        }
+        result.sort(Comparator.comparing(CacheRegionStatsDTO::getRegion));
+        return result;
+    }
+
+    // 区域名含特殊字符时MBean名称中的值会被加引号
+    private static String region(ObjectName name) {
+        String cache = name.getKeyProperty("Cache");
+        return cache.startsWith("\"") ? ObjectName.unquote(cache) : cache;
+    }
+}
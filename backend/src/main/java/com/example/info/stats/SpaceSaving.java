@@ -0,0 +1,58 @@
+package com.example.info.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving算法的高频项统计
+ * 最多跟踪capacity个键；新键在已满时替换计数最小的键，并继承其计数作为误差上界，
+ * 因此任何真实次数超过 总次数/capacity 的键都一定在表中，估计值不低于真实值
+ */
+class SpaceSaving {
+
+    private final int capacity;
+
+    private final Map<Long, long[]> counters;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现
+     */
+    void offer(Long key) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{1, 0});
+            return;
+        }
+        // 替换计数最小的键，容量较小，线性查找即可
+        Long minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < min) {
+                min = entry.getValue()[0];
+                minKey = entry.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new long[]{min + 1, min});
+    }
+
+    /**
+     * 把当前的估计次数累加到target中
+     */
+    void addTo(Map<Long, Long> target) {
+        counters.forEach((key, counter) -> target.merge(key, counter[0], Long::sum));
+    }
+
+    void clear() {
+        counters.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.info.stats;
+
+import com.example.info.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热门文章统计
+ * 每个时间窗口由若干个时间片组成环形队列，每个时间片是一个容量固定的Space-Saving表；
+ * 查询时合并窗口内的时间片取前N名。内存占用只与窗口数、时间片数和容量有关，与文章数和浏览量无关
+ */
+@Component
+public class TrendingArticles {
+
+    private final Map<String, SlidingWindow> windows = new LinkedHashMap<>();
+
+    public TrendingArticles(@Value("${article.trending.capacity:200}") int capacity) {
+        windows.put("hour", new SlidingWindow(Duration.ofMinutes(5), 12, capacity));
+        windows.put("day", new SlidingWindow(Duration.ofHours(1), 24, capacity));
+        windows.put("week", new SlidingWindow(Duration.ofHours(6), 28, capacity));
+    }
+
+    /**
+     * 记录一次文章浏览
+     */
+    public void record(Long articleId) {
+        long now = System.currentTimeMillis();
+        for (SlidingWindow window : windows.values()) {
+            window.offer(articleId, now);
+        }
+    }
+
+    /**
+     * 查询时间窗口内浏览次数最多的文章
+     * @param window hour、day或week
+     * @param limit 返回条数
+     * @return 文章ID -> 估计浏览次数，按次数降序
+     */
+    public Map<Long, Long> top(String window, int limit) {
+        SlidingWindow slidingWindow = windows.get(window);
+        if (slidingWindow == null) {
+            throw new BusinessException("不支持的时间窗口: " + window);
+        }
+        Map<Long, Long> merged = slidingWindow.merge(System.currentTimeMillis());
+        Map<Long, Long> result = new LinkedHashMap<>();
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    /**
+     * 由固定数量时间片组成的滑动窗口，过期的时间片在下次写入时被清空复用
+     */
+    private static class SlidingWindow {
+        private final long sliceMillis;
+        private final SpaceSaving[] slices;
+        private final long[] sliceEpochs;
+
+        SlidingWindow(Duration slice, int sliceCount, int capacity) {
+            this.sliceMillis = slice.toMillis();
+            this.slices = new SpaceSaving[sliceCount];
+            this.sliceEpochs = new long[sliceCount];
+            for (int i = 0; i < sliceCount; i++) {
+                slices[i] = new SpaceSaving(capacity);
+                sliceEpochs[i] = -1;
+            }
+        }
+
+        synchronized void offer(Long key, long now) {
+            long epoch = now / sliceMillis;
+            int index = (int) (epoch % slices.length);
+            if (sliceEpochs[index] != epoch) {
+                slices[index].clear();
+                sliceEpochs[index] = epoch;
+            }
+            slices[index].offer(key);
+        }
+
+        synchronized Map<Long, Long> merge(long now) {
+            long epoch = now / sliceMillis;
+            Map<Long, Long> merged = new HashMap<>();
+            for (int i = 0; i < slices.length; i++) {
+                if (sliceEpochs[i] > epoch - slices.length) {
+                    slices[i].addTo(merged);
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.info.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentCallsShareOneComputation() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> flight.execute("key", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return result;
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                futures.add(executor.submit(() -> flight.execute("key", () -> {
+                    loads.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            // 等待其余调用都进入等待状态后再放行
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Object> future : futures) {
+                assertSame(result, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void callAfterWriteDoesNotJoinOlderFlight() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object stale = new Object();
+        Object fresh = new Object();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> before = executor.submit(() -> flight.execute("key", 1, () -> {
+                started.countDown();
+                await(release);
+                return stale;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // 写入推进了代数，之后的调用不等待写入之前开始的计算
+            assertSame(fresh, flight.execute("key", 2, () -> fresh));
+            release.countDown();
+            assertSame(stale, before.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, flight.execute("key", loads::incrementAndGet));
+        assertEquals(2, flight.execute("key", loads::incrementAndGet));
+    }
+
+    @Test
+    void failureIsRethrownAndForgotten() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, flight.inFlight());
+        assertEquals(1, flight.execute("key", () -> 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
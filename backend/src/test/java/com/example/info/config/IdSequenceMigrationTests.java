@@ -0,0 +1,69 @@
+package com.example.info.config;
+
+import com.example.info.entity.Todo;
+import com.example.info.repository.TodoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 快照恢复后主键分配的验证
+ * 使用MySQL方言，使主键序列与生产环境一样由单行序列表模拟
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+        "spring.datasource.url=jdbc:h2:mem:sequences;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.test.database.replace=none",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@Import(IdSequenceMigration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequenceMigrationTests {
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdSequenceMigration idSequenceMigration;
+
+    @AfterEach
+    void cleanUp() {
+        todoRepository.deleteAll();
+    }
+
+    @Test
+    void restoredSequenceDoesNotReissueAllocatedIds() {
+        Set<Long> ids = new HashSet<>();
+        ids.add(save());
+        // 快照中的序列值早于本实例已取出的ID段
+        jdbcTemplate.update("UPDATE todos_seq SET next_val = 1");
+
+        idSequenceMigration.onSnapshotRestored();
+
+        // 超过一个ID段的插入，覆盖从序列表重新取段的情况
+        for (int i = 0; i < 60; i++) {
+            assertTrue(ids.add(save()));
+        }
+    }
+
+    private Long save() {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        return todoRepository.save(todo).getId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.info.entity;
+
+import com.example.info.common.PartialUpdater;
+import com.example.info.repository.LazyAttributes;
+import com.example.info.repository.TodoRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证经过字节码增强后，@Lob正文只在需要时读取
+ * 使用H2执行真实的Hibernate映射，通过StatementInspector记录发出的SQL
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.info.entity.RecordingInspector"
+})
+class LazyContentTests {
+
+    private static final String CONTENT = "正文".repeat(10_000);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    private Long todoId;
+
+    @BeforeEach
+    void createTodo() {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent(CONTENT);
+        entityManager.persist(todo);
+        entityManager.flush();
+        entityManager.clear();
+        todoId = todo.getId();
+        RecordingInspector.clear();
+    }
+
+    @Test
+    void statusUpdateNeverReadsContent() {
+        Todo todo = entityManager.find(Todo.class, todoId);
+        todo.setStatus(Todo.TodoStatus.COMPLETED);
+        entityManager.flush();
+
+        List<String> statements = RecordingInspector.statements();
+        assertTrue(statements.stream().anyMatch(sql -> sql.startsWith("update")), statements.toString());
+        statements.forEach(sql -> assertFalse(sql.contains("content"), sql));
+
+        entityManager.clear();
+        Todo reloaded = entityManager.find(Todo.class, todoId);
+        assertEquals(Todo.TodoStatus.COMPLETED, reloaded.getStatus());
+        assertEquals(CONTENT, reloaded.getContent());
+    }
+
+    @Test
+    void partialUpdateWithoutContentNeverReadsContent() {
+        Todo update = new Todo();
+        update.setStatus(Todo.TodoStatus.IN_PROGRESS);
+
+        PartialUpdater.copy(update, entityManager.find(Todo.class, todoId), Set.of("status"));
+        entityManager.flush();
+
+        List<String> statements = RecordingInspector.statements();
+        assertTrue(statements.stream().anyMatch(sql -> sql.startsWith("update")), statements.toString());
+        statements.forEach(sql -> assertFalse(sql.contains("content"), sql));
+    }
+
+    @Test
+    void partialUpdateWritesContentWithoutReadingIt() {
+        Todo update = new Todo();
+        update.setContent("新正文");
+
+        PartialUpdater.copy(update, entityManager.find(Todo.class, todoId), Set.of("content"));
+        entityManager.flush();
+
+        List<String> statements = RecordingInspector.statements();
+        statements.stream().filter(sql -> sql.startsWith("select"))
+                .forEach(sql -> assertFalse(sql.contains("content"), sql));
+        assertTrue(statements.stream().anyMatch(sql -> sql.startsWith("update") && sql.contains("content")),
+                statements.toString());
+
+        entityManager.clear();
+        assertEquals("新正文", entityManager.find(Todo.class, todoId).getContent());
+    }
+
+    @Test
+    void contentIsLoadedOnFirstAccess() {
+        Todo todo = entityManager.find(Todo.class, todoId);
+        assertEquals(1, RecordingInspector.statements().size());
+        assertFalse(RecordingInspector.statements().get(0).contains("content"));
+
+        assertEquals(CONTENT, todo.getContent());
+        assertEquals(2, RecordingInspector.statements().size());
+    }
+
+    @Test
+    void loadGraphReadsContentWithTheRow() {
+        List<Todo> todos = entityManager.createQuery("select e from Todo e order by e.id", Todo.class)
+                .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, LazyAttributes.loadGraph(entityManager, Todo.class))
+                .getResultList();
+
+        assertEquals(CONTENT, todos.get(0).getContent());
+        assertEquals(1, RecordingInspector.statements().size(), RecordingInspector.statements().toString());
+    }
+
+    @Test
+    void repositoryListsReadContentWithTheRow() {
+        assertEquals(CONTENT, todoRepository.findAll().get(0).getContent());
+        assertEquals(1, RecordingInspector.statements().size(), RecordingInspector.statements().toString());
+
+        RecordingInspector.clear();
+        List<Todo> slice = todoRepository.findBy((root, query, cb) -> cb.conjunction(),
+                query -> query.sortBy(Sort.by("id")).limit(10).all());
+        assertEquals(CONTENT, slice.get(0).getContent());
+        assertEquals(1, RecordingInspector.statements().size(), RecordingInspector.statements().toString());
+    }
+}
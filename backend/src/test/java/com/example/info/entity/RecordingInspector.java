@@ -0,0 +1,32 @@
+package com.example.info.entity;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 记录Hibernate发出的SQL（转为小写），测试中通过
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector启用
+ */
+public class RecordingInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    public static synchronized List<String> statements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+
+    public static synchronized void clear() {
+        STATEMENTS.clear();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (RecordingInspector.class) {
+            STATEMENTS.add(sql.toLowerCase(Locale.ROOT));
+        }
+        return sql;
+    }
+}
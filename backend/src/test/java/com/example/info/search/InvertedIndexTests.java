@@ -0,0 +1,58 @@
+package com.example.info.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTests {
+
+    @Test
+    void tokenizesCjkAsBigramsAndAsciiAsWords() {
+        assertThat(TextTokenizer.tokenize("中文搜索 Spring-Boot"))
+                .containsExactly("中文", "文搜", "搜索", "索", "spring", "boot");
+        assertThat(TextTokenizer.tokenizeQuery("中文搜索"))
+                .containsExactly("中文", "文搜", "搜索");
+    }
+
+    @Test
+    void matchesSubstringsOfIndexedText() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, TextTokenizer.tokenize("今天学习了中文搜索", "Java Spring"));
+        index.put(2L, TextTokenizer.tokenize("周末去爬山"));
+
+        assertThat(ids(index.match(TextTokenizer.tokenizeQuery("中文"), 0.6))).containsExactly(1L);
+        assertThat(ids(index.match(TextTokenizer.tokenizeQuery("索"), 0.6))).containsExactly(1L);
+        assertThat(ids(index.match(TextTokenizer.tokenizeQuery("spr"), 0.6))).containsExactly(1L);
+        assertThat(ids(index.match(TextTokenizer.tokenizeQuery("爬山"), 0.6))).containsExactly(2L);
+    }
+
+    @Test
+    void ranksNearMissesBelowExactMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, TextTokenizer.tokenize("中文搜素引擎"));
+        index.put(2L, TextTokenizer.tokenize("中文搜索引擎"));
+        index.put(3L, TextTokenizer.tokenize("英文输入法"));
+
+        List<SearchHit> hits = index.match(TextTokenizer.tokenizeQuery("中文搜索"), 0.6);
+
+        assertThat(ids(hits)).containsExactly(2L, 1L);
+        assertThat(hits.get(0).getScore()).isEqualTo(1.0);
+        assertThat(hits.get(1).getScore()).isLessThan(1.0);
+    }
+
+    @Test
+    void removesDocumentsOnUpdate() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, TextTokenizer.tokenize("旧标题"));
+        index.put(1L, TextTokenizer.tokenize("新标题"));
+
+        assertThat(index.match(TextTokenizer.tokenizeQuery("旧标"), 0.6)).isEmpty();
+        assertThat(ids(index.match(TextTokenizer.tokenizeQuery("新标"), 0.6))).containsExactly(1L);
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).toList();
+    }
+}
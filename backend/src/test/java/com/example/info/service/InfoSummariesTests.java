@@ -0,0 +1,91 @@
+package com.example.info.service;
+
+import com.example.info.dto.InfoSummaryDTO;
+import com.example.info.entity.Tag;
+import com.example.info.entity.Website;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@Import({InfoSummaries.class, ReferenceDataCache.class})
+class InfoSummariesTests {
+
+    @Autowired
+    private InfoSummaries infoSummaries;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void websiteExcerptComesFromDescription() {
+        // 网站的说明填写在description中，继承的content为空
+        Website website = new Website();
+        website.setTitle("示例网站");
+        website.setUrl("https://example.com");
+        website.setDescription("<p>网站说明</p>");
+        entityManager.persistAndFlush(website);
+
+        Page<InfoSummaryDTO> page = infoSummaries.fetch(Website.class, (root, query, cb) -> null, PageRequest.of(0, 10));
+
+        assertEquals("网站说明", page.getContent().get(0).getExcerpt());
+        assertEquals("https://example.com", page.getContent().get(0).getAttributes().get("url"));
+    }
+
+    @Test
+    void excerptStripsMarkupAndWhitespace() {
+        assertEquals("标题 第一段 内容", InfoSummaries.excerpt("<h1>标题</h1>\n<p>第一段&nbsp;<b>内容</b></p>"));
+        assertNull(InfoSummaries.excerpt(null));
+    }
+
+    @Test
+    void excerptTruncatesLongContent() {
+        String excerpt = InfoSummaries.excerpt("字".repeat(InfoSummaries.EXCERPT_LENGTH + 10));
+        assertEquals(InfoSummaries.EXCERPT_LENGTH + 1, excerpt.length());
+        assertTrue(excerpt.endsWith("…"));
+    }
+
+    @Test
+    void excerptMarksSourceCutByDatabase() {
+        // 数据库端截断时可能切在标签中间，剩余文本也可能不足摘要长度
+        String source = "<p>短内容</p>" + "<img src=\"" + "x".repeat(InfoSummaries.EXCERPT_SOURCE_LENGTH);
+        source = source.substring(0, InfoSummaries.EXCERPT_SOURCE_LENGTH);
+        assertEquals("短内容…", InfoSummaries.excerpt(source));
+    }
+
+    @Test
+    void summaryFlattensAttributes() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("priority", 3);
+        Tag tag = new Tag();
+        tag.setId(2L);
+        tag.setName("标签");
+        InfoSummaryDTO summary = new InfoSummaryDTO(1L, "标题", new Date(0), null, null, List.of(tag), "摘要", attributes);
+
+        JsonNode json = new ObjectMapper().valueToTree(summary);
+        assertEquals(3, json.get("priority").asInt());
+        assertEquals("标签", json.get("tags").get(0).get("name").asText());
+        assertFalse(json.has("attributes"));
+        assertFalse(json.has("content"));
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.info.service;
+
+import com.example.info.common.CursorSlice;
+import com.example.info.common.RelevancePager;
+import com.example.info.dto.ActivityBucketDTO;
+import com.example.info.dto.InfoSummaryDTO;
+import com.example.info.entity.RecordingInspector;
+import com.example.info.entity.Tag;
+import com.example.info.entity.Todo;
+import com.example.info.repository.TagRepository;
+import com.example.info.repository.TodoRepository;
+import com.example.info.search.BitmapIndex;
+import com.example.info.search.IndexAttributes;
+import com.example.info.search.IndexQuery;
+import com.example.info.search.IndexRebuilder;
+import com.example.info.search.SearchIndex;
+import com.example.info.stats.ActivityRollups;
+import com.example.info.stats.EntityCounters;
+import com.example.info.stats.ModificationWatermarks;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过TodoService验证更新接口的行为
+ * 索引在事务提交后才更新，所以测试方法本身不开启事务，由Service自己提交
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "search.bitmap.max-in-list=3",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.info.entity.RecordingInspector"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({TodoService.class, SearchIndex.class, BitmapIndex.class, IndexRebuilder.class, BulkOperations.class,
+        EntityCounters.class, ModificationWatermarks.class, ActivityRollups.class, StreamingExport.class, MergePatcher.class,
+        ReferenceDataCache.class, InfoSummaries.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodoServiceTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private BitmapIndex bitmapIndex;
+
+    @Autowired
+    private IndexRebuilder indexRebuilder;
+
+    @Autowired
+    private ActivityRollups activityRollups;
+
+    @BeforeEach
+    void buildIndexes() {
+        todoService.rebuildIndexes();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        todoRepository.deleteAll();
+        tagRepository.deleteAll();
+    }
+
+    @Test
+    void putKeepsOmittedTagsStatusAndPriority() throws Exception {
+        Tag tag = new Tag();
+        tag.setName("工作");
+        tagRepository.save(tag);
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("内容");
+        todo.setStatus(Todo.TodoStatus.COMPLETED);
+        todo.setPriority(1);
+        todo.setTags(List.of(tag));
+        Long id = todoService.createTodo(todo).getId();
+
+        todoService.updateTodo(id, body("{\"title\": \"新标题\", \"deadline\": null}"));
+
+        Todo updated = reload(id);
+        assertEquals("新标题", updated.getTitle());
+        assertEquals("内容", updated.getContent());
+        assertEquals(Todo.TodoStatus.COMPLETED, updated.getStatus());
+        assertEquals(1, updated.getPriority());
+        assertEquals(List.of(tag.getId()), updated.getTags().stream().map(Tag::getId).toList());
+    }
+
+    @Test
+    void putReplacesFieldsPresentInBody() throws Exception {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("内容");
+        todo.setStatus(Todo.TodoStatus.COMPLETED);
+        Long id = todoService.createTodo(todo).getId();
+
+        todoService.updateTodo(id, body("{\"status\": \"PENDING\", \"priority\": 3}"));
+
+        Todo updated = reload(id);
+        assertEquals(Todo.TodoStatus.PENDING, updated.getStatus());
+        assertEquals(3, updated.getPriority());
+        assertEquals("待办", updated.getTitle());
+    }
+
+    @Test
+    void statusChangesUpdateOnlyTheBitmapIndex() throws Exception {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("正文内容");
+        Long id = todoService.createTodo(todo).getId();
+        RecordingInspector.clear();
+
+        todoService.updateTodo(id, body("{\"status\": \"COMPLETED\"}"));
+        todoService.patchTodo(id, body("{\"priority\": 1}"));
+
+        List<String> statements = RecordingInspector.statements();
+        assertTrue(statements.stream().anyMatch(sql -> sql.startsWith("update")), statements.toString());
+        statements.forEach(sql -> assertFalse(sql.contains("content"), sql));
+        assertEquals(Set.of(id), indexQuery().eq("status", "COMPLETED").eq("priority", 1).resolve().ids());
+        assertEquals(Set.of(id), indexQuery().text("正文").resolve().ids());
+    }
+
+    @Test
+    void titleChangesReindexText() throws Exception {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("正文内容");
+        Long id = todoService.createTodo(todo).getId();
+
+        todoService.patchTodo(id, body("{\"title\": \"周报\"}"));
+
+        assertEquals(Set.of(id), indexQuery().text("周报").resolve().ids());
+        assertEquals(Set.of(id), indexQuery().text("正文").resolve().ids());
+        assertEquals(Set.of(), indexQuery().text("待办").resolve().ids());
+    }
+
+    @Test
+    void bulkStatusChangesUpdateOnlyTheBitmapIndex() {
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("正文内容");
+        Long id = todoService.createTodo(todo).getId();
+        RecordingInspector.clear();
+
+        int updated = todoService.updateTodos(null, null, null, false, "PENDING", null,
+                Map.of("status", "COMPLETED"));
+
+        assertEquals(1, updated);
+        RecordingInspector.statements().forEach(sql -> assertFalse(sql.contains("content"), sql));
+        assertEquals(Set.of(id), indexQuery().eq("status", "COMPLETED").resolve().ids());
+        assertEquals(Set.of(id), indexQuery().text("正文").resolve().ids());
+    }
+
+    @Test
+    void bulkOperationsMaintainTextIndexAndActivityRollups() {
+        Long id = createTodo("旧标题");
+        activityRollups.rebuild();
+        ActivityBucketDTO before = activityRollups.histogram(LocalDate.now(), LocalDate.now(), "day").get(0);
+
+        assertEquals(1, todoService.updateTodos(null, null, null, false, "PENDING", null, Map.of("title", "新标题")));
+        assertEquals(Set.of(id), indexQuery().text("新标题").resolve().ids());
+        assertEquals(Set.of(), indexQuery().text("旧标题").resolve().ids());
+
+        assertEquals(1, todoService.deleteTodos(null, null, null, false, "PENDING", null));
+        ActivityBucketDTO after = activityRollups.histogram(LocalDate.now(), LocalDate.now(), "day").get(0);
+        assertEquals(before.getCreated().get("todo") - 1, after.getCreated().get("todo"));
+        assertEquals(before.getUpdated().get("todo") - 1, after.getUpdated().get("todo"));
+    }
+
+    @Test
+    void rebuildReplaysWritesCommittedDuringTheScan() {
+        Long kept = createTodo("保留的待办");
+        Long deleted = createTodo("删除的待办");
+        AtomicBoolean first = new AtomicBoolean(true);
+
+        indexRebuilder.rebuild(Todo.class, todo -> {
+            if (first.getAndSet(false)) {
+                // 其他请求在本批读取之后删除了一条记录，本批仍会把它加入索引
+                CompletableFuture.runAsync(() -> todoService.deleteTodo(deleted)).join();
+            }
+            searchIndex.index(Todo.class, todo.getId(), todo.getTitle(), todo.getContent());
+            bitmapIndex.index(Todo.class, todo.getId(), IndexAttributes.create());
+        });
+
+        assertEquals(Set.of(kept), indexQuery().text("待办").resolve().ids());
+    }
+
+    @Test
+    void relevanceSortOrdersResultsBySimilarity() {
+        Long exact = createTodo("项目周报告");
+        Long partial = createTodo("项目周报");
+
+        Page<Todo> page = todoService.fetchTodos("项目周报告", null, null, false, null, null,
+                PageRequest.of(0, 10, RelevancePager.sort()));
+
+        // 按创建时间倒序时部分命中的记录会排在前面
+        assertEquals(List.of(exact, partial), page.map(Todo::getId).getContent());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void textHitsAboveTheInListLimitFallBackToSql() {
+        List<Long> ids = new ArrayList<>();
+        for (String suffix : List.of("A", "B", "C", "D")) {
+            ids.add(createTodo("周报" + suffix));
+        }
+
+        IndexQuery query = indexQuery().text("周报").resolve();
+        assertNull(query.ids());
+        assertFalse(query.textResolved());
+        assertEquals(Set.copyOf(ids), Set.copyOf(query.rankedIds()));
+
+        Page<Todo> page = todoService.fetchTodos("周报", null, null, false, "PENDING", null, PageRequest.of(0, 10));
+        assertEquals(4, page.getTotalElements());
+        Page<Todo> ranked = todoService.fetchTodos("周报", null, null, false, null, null,
+                PageRequest.of(1, 3, RelevancePager.sort()));
+        assertEquals(1, ranked.getContent().size());
+        assertEquals(4, ranked.getTotalElements());
+    }
+
+    @Test
+    void cursorPagesReturnSummaries() {
+        Long b = createTodo("待办B");
+        Long a = createTodo("待办A");
+        Long c = createTodo("待办C");
+        Sort sort = Sort.by(Sort.Direction.ASC, "title");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        CursorSlice<InfoSummaryDTO> page = transaction.execute(status ->
+                todoService.fetchTodoSummariesAfter(null, null, null, false, null, null, sort, "", 2));
+        assertEquals(List.of(a, b), page.getContent().stream().map(InfoSummaryDTO::getId).toList());
+        assertEquals("正文内容", page.getContent().get(0).getExcerpt());
+        assertTrue(page.isHasNext());
+
+        CursorSlice<InfoSummaryDTO> next = transaction.execute(status ->
+                todoService.fetchTodoSummariesAfter(null, null, null, false, null, null, sort, page.getNextCursor(), 2));
+        assertEquals(List.of(c), next.getContent().stream().map(InfoSummaryDTO::getId).toList());
+        assertFalse(next.isHasNext());
+    }
+
+    private Long createTodo(String title) {
+        Todo todo = new Todo();
+        todo.setTitle(title);
+        todo.setContent("正文内容");
+        return todoService.createTodo(todo).getId();
+    }
+
+    private IndexQuery indexQuery() {
+        return IndexQuery.of(Todo.class, searchIndex, bitmapIndex);
+    }
+
+    private Map<String, Object> body(String json) throws Exception {
+        return objectMapper.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    private Todo reload(Long id) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Todo todo = todoRepository.findById(id).orElseThrow();
+            Hibernate.initialize(todo.getTags());
+            todo.getContent();
+            return todo;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.info.snapshot;
+
+import com.example.info.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestoreGateTests {
+
+    private final RestoreGate gate = new RestoreGate();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void rejectsWritesButNotReadsWhileClosed() throws Exception {
+        gate.close(1000);
+        try {
+            // 请求在其他线程处理，恢复线程自身持有写锁时可以重入读锁
+            CompletableFuture<Boolean> rejected = CompletableFuture.supplyAsync(() -> handle("PUT"));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertEquals(503, ((BusinessException) e.getCause()).getCode());
+            assertTrue(CompletableFuture.supplyAsync(() -> handle("GET")).get(5, TimeUnit.SECONDS));
+        } finally {
+            gate.open();
+        }
+
+        MockHttpServletRequest write = new MockHttpServletRequest("PUT", "/api/todos/1");
+        assertTrue(gate.preHandle(write, response, null));
+        gate.afterCompletion(write, response, null, null);
+    }
+
+    @Test
+    void closeWaitsForWritesInProgress() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/todos");
+            try {
+                gate.preHandle(request, response, null);
+                entered.countDown();
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                gate.afterCompletion(request, response, null, null);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(BusinessException.class, () -> gate.close(50));
+        finish.countDown();
+        write.get(5, TimeUnit.SECONDS);
+        gate.close(1000);
+        gate.open();
+    }
+
+    private boolean handle(String method) {
+        try {
+            return gate.preHandle(new MockHttpServletRequest(method, "/api/todos/1"), response, null);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.info.snapshot;
+
+import com.example.info.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsFramesAndValues() throws Exception {
+        Path file = dir.resolve("test.snap");
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            SnapshotFile.writeHeader(channel, 42L);
+            TableChunk.Writer writer = new TableChunk.Writer(List.of("id", "title", "amount", "created_time"));
+            writer.writeRow(new Object[]{1L, "中文标题", new BigDecimal("12.50"), time});
+            writer.writeRow(new Object[]{2, null, null, null});
+            SnapshotFile.writeFrame(channel, "expenses", writer.finish());
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(42L, SnapshotFile.readHeader(channel));
+            SnapshotFile.Frame frame = SnapshotFile.readFrame(channel);
+            assertEquals("expenses", frame.table());
+            TableChunk chunk = TableChunk.read(frame.raw());
+            assertEquals(List.of("id", "title", "amount", "created_time"), chunk.columns);
+            assertArrayEquals(new Object[]{1L, "中文标题", new BigDecimal("12.50"), time}, chunk.rows.get(0));
+            assertArrayEquals(new Object[]{2L, null, null, null}, chunk.rows.get(1));
+            assertNull(SnapshotFile.readFrame(channel));
+        }
+    }
+
+    @Test
+    void detectsCorruptedFrame() throws Exception {
+        Path file = dir.resolve("corrupt.snap");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            SnapshotFile.writeHeader(channel, 0L);
+            TableChunk.Writer writer = new TableChunk.Writer(List.of("id"));
+            writer.writeRow(new Object[]{7L});
+            SnapshotFile.writeFrame(channel, "tags", writer.finish());
+        }
+        // 篡改帧头中的CRC
+        byte[] bytes = Files.readAllBytes(file);
+        int crcOffset = 8 + 4 + 8 + 4 + "tags".length() + 4 + 4;
+        ByteBuffer.wrap(bytes).putLong(crcOffset, 12345L);
+        Files.write(file, bytes);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SnapshotFile.readHeader(channel);
+            assertThrows(BusinessException.class, () -> SnapshotFile.readFrame(channel));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.info.stats;
+
+import com.example.info.entity.Article;
+import com.example.info.entity.Todo;
+import com.example.info.repository.ArticleRepository;
+import com.example.info.repository.TodoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按application.properties中的二级缓存配置启动JPA层（数据库换成H2），验证ehcache.xml能被加载、各区域可用。
+ * READ_WRITE策略在事务提交后才写入缓存，所以测试自己提交事务
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void entitiesAreCachedAfterLoad() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Todo todo = new Todo();
+        todo.setTitle("待办");
+        todo.setContent("内容");
+        tx.executeWithoutResult(status -> entityManager.persist(todo));
+        entityManagerFactory.getCache().evictAll();
+        assertFalse(entityManagerFactory.getCache().contains(Todo.class, todo.getId()));
+
+        tx.executeWithoutResult(status -> entityManager.find(Todo.class, todo.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Todo.class, todo.getId()));
+
+        todoRepository.deleteById(todo.getId());
+    }
+
+    @Test
+    void viewFlushInvalidatesCachedArticleQueries() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Article popular = article("热门", 5L);
+        Article rising = article("新文章", 0L);
+        tx.executeWithoutResult(status -> {
+            entityManager.persist(popular);
+            entityManager.persist(rising);
+        });
+        PageRequest byViews = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "views"));
+        assertEquals(popular.getId(), articleRepository.findAll((root, query, cb) -> cb.conjunction(), byViews)
+                .getContent().get(0).getId());
+
+        ArticleViewCounter counter = new ArticleViewCounter(jdbcTemplate, entityManagerFactory, new ModificationWatermarks());
+        for (int i = 0; i < 10; i++) {
+            counter.record(rising.getId());
+        }
+        counter.flush();
+
+        // 查询缓存中按旧浏览量排好的结果已失效
+        assertEquals(rising.getId(), articleRepository.findAll((root, query, cb) -> cb.conjunction(), byViews)
+                .getContent().get(0).getId());
+        articleRepository.deleteAll();
+    }
+
+    @Test
+    void cacheableQueriesRun() {
+        assertEquals(0, todoRepository.findAll((root, query, cb) -> cb.conjunction(), PageRequest.of(0, 10))
+                .getTotalElements());
+    }
+
+    private static Article article(String title, Long views) {
+        Article article = new Article();
+        article.setTitle(title);
+        article.setContent("正文");
+        article.setStatus(Article.Status.PUBLISHED);
+        article.setViews(views);
+        return article;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.info.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTests {
+
+    @Test
+    void keepsHeavyHittersWithinCapacity() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer(1L);
+            if (i % 2 == 0) {
+                sketch.offer(2L);
+            }
+            // 大量只出现一次的长尾文章
+            sketch.offer(1000L + i);
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        sketch.addTo(counts);
+        assertEquals(10, counts.size());
+        assertEquals(100L, counts.get(1L));
+        assertTrue(counts.get(2L) >= 50L);
+    }
+
+    @Test
+    void trendingRanksByWindowCount() {
+        TrendingArticles trending = new TrendingArticles(10);
+        for (int i = 0; i < 5; i++) {
+            trending.record(7L);
+        }
+        trending.record(8L);
+
+        Map<Long, Long> top = trending.top("hour", 1);
+        assertEquals(Map.of(7L, 5L), top);
+    }
+}
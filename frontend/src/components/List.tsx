@@ -80,6 +80,16 @@ export default function List<T>({
 
 	// 模态框相关逻辑
 	const openModal = async (item: T | null = null) => {
+		// 列表行只是摘要，不含正文等大字段；编辑时以完整记录作为表单初始值和保存的基础
+		if (item && api.fetchItem) {
+			try {
+				item = await api.fetchItem(item[itemIdKey] as unknown as number);
+			} catch (error) {
+				console.error('加载记录失败:', error);
+				alert('加载记录失败，请重试');
+				return;
+			}
+		}
 		setCurrentItem(item);
 		setLoadingDynamicOptions(true);
 
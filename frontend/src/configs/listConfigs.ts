@@ -5,6 +5,7 @@ import {
     deleteArticle,
     updateArticle,
     fetchArticles,
+    fetchArticleById,
 
     createCategory,
     deleteCategory,
@@ -25,46 +26,55 @@ import {
     deleteTodo,
     updateTodo,
     fetchTodos,
+    fetchTodoById,
 
     createMemo,
     deleteMemo,
     updateMemo,
     fetchMemos,
+    fetchMemoById,
 
     createStudyCheckIn,
     deleteStudyCheckIn,
     updateStudyCheckIn,
     fetchStudyCheckIns,
+    fetchStudyCheckInById,
 
     createAudio,
     deleteAudio,
     updateAudio,
     fetchAudios,
+    fetchAudioById,
 
     createWebsite,
     deleteWebsite,
     updateWebsite,
     fetchWebsites,
+    fetchWebsiteById,
 
     createExpense,
     deleteExpense,
     updateExpense,
     fetchExpenses,
+    fetchExpenseById,
 
     createTravelPlan,
     deleteTravelPlan,
     updateTravelPlan,
     fetchTravelPlans,
+    fetchTravelPlanById,
 
     createVideo,
     deleteVideo,
     updateVideo,
     fetchVideos,
+    fetchVideoById,
 
     createDiary,
     deleteDiary,
     updateDiary,
     fetchDiaries,
+    fetchDiaryById,
 
     fetchAllCategories,
     fetchAllArticles,
@@ -95,6 +105,7 @@ export const articleListConfig: ListConfig<Article> = {
         createItem: createArticle,
         deleteItem: deleteArticle,
         updateItem: updateArticle,
+        fetchItem: fetchArticleById,
         fetchList: fetchArticles,
         
         fetchAllCategories: fetchAllCategories,
@@ -153,6 +164,7 @@ export const articleListConfig: ListConfig<Article> = {
                 { value: 'createdTime-desc', label: '最新发布' },
                 { value: 'createdTime-asc', label: '最早发布' },
                 { value: 'views-desc', label: '最多浏览' },
+                { value: 'relevance', label: '最相关' },
             ]
         }
     ],
@@ -246,6 +258,7 @@ export const todoListConfig: ListConfig<Todo> = {
         createItem: createTodo,
         deleteItem: deleteTodo,
         updateItem: updateTodo,
+        fetchItem: fetchTodoById,
         fetchList: fetchTodos
     },
     columns: [
@@ -319,11 +332,12 @@ export const memoListConfig: ListConfig<Memo> = {
         createItem: createMemo,
         deleteItem: deleteMemo,
         updateItem: updateMemo,
+        fetchItem: fetchMemoById,
         fetchList: fetchMemos,
     },
     columns: [
         { key: 'title', title: '标题', width: '40%' },
-        { key: 'content', title: '内容', width: '40%' },
+        { key: 'excerpt', title: '内容', width: '40%' },
         { key: 'createdTime', title: '创建时间', width: '20%' }
     ],
     filters: [],
@@ -340,6 +354,7 @@ export const audioListConfig: ListConfig<Audio> = {
         createItem: createAudio,
         deleteItem: deleteAudio,
         updateItem: updateAudio,
+        fetchItem: fetchAudioById,
         fetchList: fetchAudios,
     },
     columns: [
@@ -362,6 +377,7 @@ export const videoListConfig: ListConfig<Video> = {
         createItem: createVideo,
         deleteItem: deleteVideo,
         updateItem: updateVideo,
+        fetchItem: fetchVideoById,
         fetchList: fetchVideos,
     },
     columns: [
@@ -384,12 +400,13 @@ export const websiteListConfig: ListConfig<Website> = {
         createItem: createWebsite,
         deleteItem: deleteWebsite,
         updateItem: updateWebsite,
+        fetchItem: fetchWebsiteById,
         fetchList: fetchWebsites,
     },
     columns: [
         { key: 'title', title: '网站名称', width: '25%' },
         { key: 'url', title: '网址', width: '40%' },
-        { key: 'description', title: '描述', width: '20%' },
+        { key: 'excerpt', title: '描述', width: '20%' },
         { key: 'createdTime', title: '创建时间', width: '15%' }
     ],
     filters: [],
@@ -406,6 +423,7 @@ export const expenseListConfig: ListConfig<Expense> = {
         createItem: createExpense,
         deleteItem: deleteExpense,
         updateItem: updateExpense,
+        fetchItem: fetchExpenseById,
         fetchList: fetchExpenses,
     },
     columns: [
@@ -429,6 +447,7 @@ export const travelPlanListConfig: ListConfig<TravelPlan> = {
         createItem: createTravelPlan,
         deleteItem: deleteTravelPlan,
         updateItem: updateTravelPlan,
+        fetchItem: fetchTravelPlanById,
         fetchList: fetchTravelPlans,
     },
     columns: [
@@ -452,12 +471,13 @@ export const studyCheckInListConfig: ListConfig<StudyCheckIn> = {
         createItem: createStudyCheckIn,
         deleteItem: deleteStudyCheckIn,
         updateItem: updateStudyCheckIn,
+        fetchItem: fetchStudyCheckInById,
         fetchList: fetchStudyCheckIns,
     },
     columns: [
         { key: 'category', title: '分类', width: '20%' },
         { key: 'duration', title: '时长(分钟)', width: '15%' },
-        { key: 'content', title: '学习内容', width: '40%' },
+        { key: 'excerpt', title: '学习内容', width: '40%' },
         { key: 'checkInDate', title: '日期', width: '25%' }
     ],
     filters: [],
@@ -495,6 +515,7 @@ export const diaryListConfig: ListConfig<Diary> = {
         createItem: createDiary,
         deleteItem: deleteDiary,
         updateItem: updateDiary,
+        fetchItem: fetchDiaryById,
         fetchList: fetchDiaries,
     },
     columns: [
@@ -239,9 +239,7 @@ const ArticleList: React.FC = () => {
               
               {/* 文章摘要 */}
               <p className="article-excerpt">
-                {article.content.length > 150 
-                  ? `${article.content.substring(0, 150)}...` 
-                  : article.content || '无内容'}
+                {article.excerpt || '无内容'}
               </p>
               
               {/* 文章元数据 */}
@@ -345,6 +343,7 @@ const ArticleList: React.FC = () => {
                   <option value="createdTime-desc">创建时间(新到旧)</option>
                   <option value="createdTime-asc">创建时间(旧到新)</option>
                   <option value="views-desc">浏览量(高到低)</option>
+                  <option value="relevance">相关度(需输入搜索词)</option>
                 </select>
               </div>
             </div>
@@ -324,7 +324,7 @@ const DiaryList: React.FC = () => {
                 </div>
 
                 <div className="diary-content">
-                  <p className="diary-text">{diary.content}</p>
+                  <p className="diary-text">{diary.excerpt}</p>
                 </div>
 
                 {diary.tags && diary.tags.length > 0 && (
@@ -157,8 +157,8 @@ const TodoList: React.FC = () => {
                 />
                 <div className="todo-text">
                   <h3 className="todo-title">{todo.title}</h3>
-                  {todo.content && (
-                    <p className="todo-description">{todo.content}</p>
+                  {todo.excerpt && (
+                    <p className="todo-description">{todo.excerpt}</p>
                   )}
                   <div className="todo-meta">
                     <span className={`status-badge status-${todo.status.toLowerCase()}`}>
@@ -94,6 +94,7 @@ export interface Article {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   status: 'PUBLISHED' | 'UNPUBLISHED';
   visibility: 'PUBLIC' | 'PRIVATE';
   createdTime: string;
@@ -107,7 +108,7 @@ export interface ArticleFilterParams {
   searchText?: string;
   status?: 'ALL' | 'PUBLISHED' | 'UNPUBLISHED';
   categoryId?: number;  // 改為 categoryId
-  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'views-desc';
+  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'views-desc' | 'relevance';
   visibility?: 'ALL' | 'PUBLIC' | 'PRIVATE';
   tagId?: number;
   page?: number;
@@ -154,6 +155,7 @@ export interface Todo {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   status: 'PENDING' | 'IN_PROGRESS' | 'COMPLETED';
   deadline: string;
   priority: number;
@@ -169,7 +171,7 @@ export interface TodoFilterParams {
   priority?: number;
   categoryId?: number;
   tagId?: number;
-  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'deadline-asc' | 'deadline-desc' | 'priority-asc' | 'priority-desc';
+  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'deadline-asc' | 'deadline-desc' | 'priority-asc' | 'priority-desc' | 'relevance';
   page?: number;
   size?: number;
 }
@@ -186,6 +188,7 @@ export interface Memo {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   createdTime: string;
   updatedTime: string;
   category: Category | null;
@@ -205,6 +208,7 @@ export interface StudyCheckIn {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   hours: number;
   date: string;
   createdTime: string;
@@ -248,6 +252,7 @@ export interface Website {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   url: string;
   createdTime: string;
   updatedTime: string;
@@ -338,6 +343,7 @@ export interface Diary {
   id: number;
   title: string;
   content: string;
+  excerpt?: string;  // 列表接口返回的正文摘要，列表中不包含content
   mood: 'HAPPY' | 'SAD' | 'EXCITED' | 'CALM' | 'ANGRY' | 'ANXIOUS';
   weather: 'SUNNY' | 'CLOUDY' | 'RAINY' | 'SNOWY' | 'WINDY';
   createdTime: string;
@@ -352,7 +358,7 @@ export interface DiaryFilterParams {
   tagId?: number;
   mood?: 'HAPPY' | 'SAD' | 'EXCITED' | 'CALM' | 'ANGRY' | 'ANXIOUS';
   weather?: 'SUNNY' | 'CLOUDY' | 'RAINY' | 'SNOWY' | 'WINDY';
-  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'title-asc';
+  sortBy?: 'createdTime-desc' | 'createdTime-asc' | 'title-asc' | 'relevance';
   page?: number;
   size?: number;
 }
@@ -44,6 +44,9 @@ export interface ListConfig<T> {
 
 		updateItem?: (item: T) => Promise<T>
 
+		// 列表只返回摘要时，编辑前按ID读取完整记录
+		fetchItem?: (id: number) => Promise<T>;
+
 		fetchList: (params: any) => Promise<{
 		content: T[];
 		totalElements: number;